@@ -0,0 +1,36 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.entity.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic test data shared by the benchmarks: ids 1..count, birth dates spread over 1950-2004.
+ */
+final class BenchmarkUsers {
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    static final int BIRTH_DATE_SPAN_DAYS = 55 * 365;
+
+    private BenchmarkUsers() {
+    }
+
+    static List<User> create(int count, boolean withIds) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User();
+            if (withIds) {
+                user.setId((long) i);
+            }
+            user.setEmail("user" + i + "@example.com");
+            user.setFirstName("First" + i);
+            user.setLastName("Last" + i);
+            user.setBirthDate(FIRST_BIRTH_DATE.plusDays((i * 7919L) % BIRTH_DATE_SPAN_DAYS));
+            user.setAddress("Kyiv, street " + (i % 1000));
+            user.setPhoneNumber(String.format("%010d", i));
+            users.add(user);
+        }
+        return users;
+    }
+}
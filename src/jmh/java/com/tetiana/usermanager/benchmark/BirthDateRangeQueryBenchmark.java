@@ -0,0 +1,128 @@
+package com.tetiana.usermanager.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the birth date range projection query on H2 (MySQL mode) with the schema at V1 (no index,
+ * full table scan) versus the latest migration (with the (birth_date, id) index). The query plan is
+ * printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BirthDateRangeQueryBenchmark {
+    static final String RANGE_QUERY = "SELECT id, email, first_name, last_name, birth_date, address, phone_number "
+            + "FROM user WHERE birth_date BETWEEN ? AND ? ORDER BY birth_date, id";
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1940, 1, 1);
+    private static final int BIRTH_DATE_SPAN_DAYS = 65 * 365;
+
+    @Param({"100000", "1000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement rangeQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:range" + rows + indexed + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"
+                // otherwise H2 serves repeated identical queries from its result cache
+                + ";OPTIMIZE_REUSE_RESULTS=FALSE";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .target(indexed ? MigrationVersion.LATEST : MigrationVersion.fromVersion("1"))
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(url, "sa", "");
+        insertUsers(connection, rows);
+        rangeQuery = connection.prepareStatement(RANGE_QUERY);
+        rangeQuery.setDate(1, Date.valueOf(LocalDate.of(1980, 6, 1)));
+        rangeQuery.setDate(2, Date.valueOf(LocalDate.of(1980, 6, 30)));
+        printPlan();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public void rangeQuery(Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = rangeQuery.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getString(2));
+                blackhole.consume(resultSet.getDate(5));
+            }
+        }
+    }
+
+    static void insertUsers(Connection connection, int rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO user "
+                + "(email, first_name, last_name, birth_date, address, phone_number) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "user" + i + "@example.com");
+                insert.setString(2, "First" + i);
+                insert.setString(3, "Last" + i);
+                insert.setDate(4, Date.valueOf(FIRST_BIRTH_DATE.plusDays((i * 7919L) % BIRTH_DATE_SPAN_DAYS)));
+                insert.setString(5, "Kyiv, street " + (i % 1000));
+                insert.setString(6, String.format("%010d", i));
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private void printPlan() throws SQLException {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + RANGE_QUERY)) {
+            explain.setDate(1, Date.valueOf(LocalDate.of(1980, 6, 1)));
+            explain.setDate(2, Date.valueOf(LocalDate.of(1980, 6, 30)));
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    System.out.println("rows=" + rows + " indexed=" + indexed + " plan: " + plan.getString(1).replace('\n', ' '));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@link UserRepository} stub backed by maps, covering the methods the benchmarked service calls. Takes the
+ * database out of the measurement so the service's own cost is visible.
+ */
+final class InMemoryUserRepository {
+    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, LocalDate> indexedBirthDates = new HashMap<>();
+    private final TreeMap<LocalDate, List<User>> byBirthDate = new TreeMap<>();
+
+    private InMemoryUserRepository() {
+    }
+
+    static UserRepository create(List<User> users) {
+        InMemoryUserRepository repository = new InMemoryUserRepository();
+        users.forEach(repository::save);
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(repository.users.get((Long) args[0]));
+                    case "findViewById" -> Optional.ofNullable(repository.users.get((Long) args[0]))
+                            .map(InMemoryUserRepository::toView);
+                    case "findViewsByBirthDateBetween" ->
+                            repository.findViewsByBirthDateBetween((LocalDate) args[0], (LocalDate) args[1]);
+                    case "save" -> repository.save((User) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> InMemoryUserRepository.class.getSimpleName();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private User save(User user) {
+        // the service mutates loaded entities in place, so the old index key is tracked separately
+        User previous = users.put(user.getId(), user);
+        LocalDate previousBirthDate = indexedBirthDates.put(user.getId(), user.getBirthDate());
+        if (previous != null) {
+            byBirthDate.get(previousBirthDate).remove(previous);
+        }
+        byBirthDate.computeIfAbsent(user.getBirthDate(), date -> new ArrayList<>()).add(user);
+        return user;
+    }
+
+    private List<UserView> findViewsByBirthDateBetween(LocalDate start, LocalDate end) {
+        List<UserView> views = new ArrayList<>();
+        for (List<User> sameDay : byBirthDate.subMap(start, true, end, true).values()) {
+            for (User user : sameDay) {
+                views.add(toView(user));
+            }
+        }
+        return views;
+    }
+
+    static UserView toView(User user) {
+        return new UserView(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate(), user.getAddress(), user.getPhoneNumber(), user.getVersion());
+    }
+}
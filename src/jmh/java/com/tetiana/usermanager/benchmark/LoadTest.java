@@ -0,0 +1,159 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tetiana.usermanager.UsermanagerApplication;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.repository.UserRepository;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load test of {@code GET /users/{id}} with the user cache off, so every request reaches the
+ * database. For each request handling mode the application is started on a random port and seeded, then each
+ * client count runs with every client sending its next request as soon as the previous one is answered.
+ * Throughput and latency are printed and written to {@code target/load-test-result.json}.
+ * <p>
+ * Arguments, all optional: {@code clients=1000,5000 seconds=20 warmup=5 modes=platform,virtual users=10000}.
+ * The virtual mode needs a Java 21 runtime. Arguments starting with {@code --} go to the application, e.g.
+ * {@code --spring.datasource.url=...} to run against MySQL instead of in-memory H2.
+ */
+public final class LoadTest {
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>(Map.of(
+                "clients", "1000,5000",
+                "seconds", "20",
+                "warmup", "5",
+                "modes", "platform,virtual",
+                "users", "10000"));
+        Map<String, String> applicationArgs = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            if (arg.startsWith("--")) {
+                applicationArgs.put(keyValue[0].substring(2), keyValue.length > 1 ? keyValue[1] : "");
+            } else {
+                options.put(keyValue[0], keyValue[1]);
+            }
+        }
+        int[] clientCounts = Arrays.stream(options.get("clients").split(",")).mapToInt(Integer::parseInt).toArray();
+        Duration measurement = Duration.ofSeconds(Long.parseLong(options.get("seconds")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+        int users = Integer.parseInt(options.get("users"));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (String mode : options.get("modes").split(",")) {
+            try (ConfigurableApplicationContext context = start(mode, applicationArgs)) {
+                List<Long> ids = context.getBean(UserRepository.class)
+                        .saveAll(BenchmarkUsers.create(users, false)).stream()
+                        .map(User::getId)
+                        .toList();
+                URI base = URI.create("http://localhost:"
+                        + ((WebServerApplicationContext) context).getWebServer().getPort() + "/users/");
+                for (int clients : clientCounts) {
+                    run(base, ids, clients, warmup);
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("mode", mode);
+                    result.put("clients", clients);
+                    result.putAll(run(base, ids, clients, measurement));
+                    System.out.println(result);
+                    results.add(result);
+                }
+            }
+        }
+        File out = new File(options.getOrDefault("out", "target/load-test-result.json"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, results);
+        System.out.println("Results written to " + out.getAbsolutePath());
+    }
+
+    private static ConfigurableApplicationContext start(String mode, Map<String, String> overrides) {
+        // command line arguments, because application.properties and custom.properties outrank builder defaults
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", "jdbc:h2:mem:load-test-" + mode + ";MODE=MySQL;NON_KEYWORDS=USER");
+        properties.put("user_cache_max_size", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("virtual_threads", String.valueOf(mode.equals("virtual")));
+        properties.putAll(overrides);
+        return new SpringApplicationBuilder(UsermanagerApplication.class).run(properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new));
+    }
+
+    private static Map<String, Object> run(URI base, List<Long> ids, int clients, Duration duration) {
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Timer latency = Timer.builder("latency")
+                .publishPercentiles(PERCENTILES)
+                .distributionStatisticExpiry(duration.multipliedBy(2))
+                .distributionStatisticBufferLength(1)
+                .register(new SimpleMeterRegistry());
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long start = System.nanoTime();
+        CompletableFuture<?>[] loops = new CompletableFuture<?>[clients];
+        for (int i = 0; i < clients; i++) {
+            loops[i] = loop(httpClient, base, ids, deadline, latency, rejected, errors);
+        }
+        CompletableFuture.allOf(loops).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("requests", latency.count());
+        result.put("throughput", Math.round(latency.count() / seconds));
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+            result.put("p" + (percentile.percentile() * 100) + "_ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        result.put("rejected", rejected.get());
+        result.put("errors", errors.get());
+        return result;
+    }
+
+    private static CompletableFuture<Void> loop(HttpClient httpClient, URI base, List<Long> ids, long deadline,
+                                                Timer latency, AtomicLong rejected, AtomicLong errors) {
+        if (System.nanoTime() >= deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        HttpRequest request = HttpRequest.newBuilder(base.resolve(String.valueOf(id)))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (error != null || response.statusCode() >= 500 && response.statusCode() != 503) {
+                        errors.incrementAndGet();
+                    } else if (response.statusCode() == 503) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> loop(httpClient, base, ids, deadline, latency, rejected, errors));
+    }
+}
@@ -0,0 +1,145 @@
+package com.tetiana.usermanager.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second inserted the way a batch or import chunk is flushed by Hibernate: 500 users in one
+ * transaction, through a statement prepared per chunk and sent in JDBC batches of {@code batchSize}.
+ * <p>
+ * The {@code prod} driver settings are the {@code data-source-properties} of {@code application-prod.properties}
+ * and only mean something to MySQL Connector/J, so on the default in-memory H2 (MySQL mode) the difference
+ * is in the batch size alone. To measure the driver settings, point it at a MySQL database:
+ * {@code -Djmh.args="UserBatchInsertBenchmark -p url=jdbc:mysql://localhost:3306/test -p username=root
+ * -p password=... -p driver=default,prod"}. The schema is migrated, and rows are inserted above the
+ * highest existing id and deleted again after every iteration, so each one starts from the same table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserBatchInsertBenchmark {
+    private static final int CHUNK = 500;
+    private static final String INSERT = "INSERT INTO user (address, birth_date, email, first_name, last_name, "
+            + "phone_number, version, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DATA_SOURCE_PROPERTY = "spring.datasource.hikari.data-source-properties.";
+
+    @Param({"jdbc:h2:mem:batch-insert;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"})
+    private String url;
+
+    @Param({"sa"})
+    private String username;
+
+    @Param({""})
+    private String password;
+
+    @Param({"prod"})
+    private String driver;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private Connection connection;
+    private long firstId;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        Flyway.configure().dataSource(url, username, password).load().migrate();
+        Properties properties = new Properties();
+        if (driver.equals("prod") && url.startsWith("jdbc:mysql:")) {
+            properties.putAll(prodDriverProperties());
+        }
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        connection = DriverManager.getConnection(url, properties);
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM user")) {
+            resultSet.next();
+            firstId = resultSet.getLong(1) + 1;
+        }
+        connection.commit();
+        nextId = firstId;
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInserted() throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user WHERE id >= ?")) {
+            delete.setLong(1, firstId);
+            delete.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public void insertChunk() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (int i = 1; i <= CHUNK; i++) {
+                long id = nextId++;
+                insert.setString(1, "Kyiv, street " + id % 1000);
+                insert.setDate(2, Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(id % 15000)));
+                insert.setString(3, "user" + id + "@example.com");
+                insert.setString(4, "First" + id);
+                insert.setString(5, "Last" + id);
+                insert.setString(6, String.format("%010d", id % 10_000_000_000L));
+                insert.setLong(7, 0);
+                insert.setLong(8, id);
+                insert.addBatch();
+                if (i % batchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+    }
+
+    private static Properties prodDriverProperties() throws IOException {
+        Properties profile = new Properties();
+        try (InputStream in = UserBatchInsertBenchmark.class.getResourceAsStream("/application-prod.properties")) {
+            profile.load(in);
+        }
+        Properties properties = new Properties();
+        for (String name : profile.stringPropertyNames()) {
+            if (name.startsWith(DATA_SOURCE_PROPERTY)) {
+                properties.setProperty(name.substring(DATA_SOURCE_PROPERTY.length()), profile.getProperty(name));
+            }
+        }
+        return properties;
+    }
+}
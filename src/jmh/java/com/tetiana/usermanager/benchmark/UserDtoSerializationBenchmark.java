@@ -0,0 +1,56 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of {@link UserDto} as configured by Spring Boot, for one user and for a 1000 user
+ * range result carrying {@code view} links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserDtoSerializationBenchmark {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private UserDto user;
+    private List<UserDto> users;
+
+    @Setup
+    public void setUp() {
+        user = UserMapper.toDto(BenchmarkUsers.create(1, true).get(0));
+        users = BenchmarkUsers.create(1000, true).stream()
+                .map(UserMapper::toDto)
+                .peek(dto -> dto.add(Link.of("http://localhost/users/" + dto.getId(), "view")))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeRange() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
@@ -0,0 +1,100 @@
+package com.tetiana.usermanager.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of looking a user up by email and by phone number on H2 (MySQL mode), with the schema before the
+ * lookup indexes (V4, full table scan) versus the latest migration. Each call looks up a different user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserLookupQueryBenchmark {
+    private static final String SELECT_USERS = "SELECT id, email, first_name, last_name, birth_date, address, "
+            + "phone_number, version FROM user";
+
+    @Param({"1000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement emailQuery;
+    private PreparedStatement phoneQuery;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:lookup" + rows + indexed + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1"
+                + ";OPTIMIZE_REUSE_RESULTS=FALSE";
+        Flyway.configure()
+                .dataSource(url, "sa", "")
+                .target(indexed ? MigrationVersion.LATEST : MigrationVersion.fromVersion("4"))
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(url, "sa", "");
+        BirthDateRangeQueryBenchmark.insertUsers(connection, rows);
+        emailQuery = connection.prepareStatement(SELECT_USERS + " WHERE email = ?");
+        phoneQuery = connection.prepareStatement(SELECT_USERS + " WHERE phone_number = ? ORDER BY id");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public void byEmail(Blackhole blackhole) throws SQLException {
+        emailQuery.setString(1, "user" + nextUser() + "@example.com");
+        consume(emailQuery, blackhole);
+    }
+
+    @Benchmark
+    public void byPhoneNumber(Blackhole blackhole) throws SQLException {
+        phoneQuery.setString(1, String.format("%010d", nextUser()));
+        consume(phoneQuery, blackhole);
+    }
+
+    private int nextUser() {
+        next = (next + 7919) % rows;
+        return next;
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
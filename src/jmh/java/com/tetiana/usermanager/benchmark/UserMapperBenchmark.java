@@ -0,0 +1,71 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.mapper.UserMapper;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-entity cost of the hand-written {@link UserMapper} against the reflective {@link ModelMapper} it
+ * replaced. Run with {@code -prof gc} to get bytes allocated per call ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+    private final ModelMapper modelMapper = new ModelMapper();
+    private User user;
+    private UserDto userDto;
+
+    @Setup
+    public void setUp() {
+        user = new User();
+        user.setId(42L);
+        user.setEmail("user@example.com");
+        user.setFirstName("Tetiana");
+        user.setLastName("Shevchenko");
+        user.setBirthDate(LocalDate.of(1990, 5, 17));
+        user.setAddress("Kyiv, Khreshchatyk 1");
+        user.setPhoneNumber("0441234567");
+        userDto = UserMapper.toDto(user);
+        // build the type maps before measuring
+        modelMapper.map(user, UserDto.class);
+        modelMapper.map(userDto, User.class);
+    }
+
+    @Benchmark
+    public UserDto modelMapperToDto() {
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto userMapperToDto() {
+        return UserMapper.toDto(user);
+    }
+
+    @Benchmark
+    public User modelMapperToEntity() {
+        return modelMapper.map(userDto, User.class);
+    }
+
+    @Benchmark
+    public User userMapperToEntity() {
+        return UserMapper.toEntity(userDto);
+    }
+}
@@ -0,0 +1,88 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the link-free read responses, a single user and a 10k user compact range, the old way as mapped
+ * {@link UserDto}s and the lean way straight from {@link UserView}s. Output is discarded, so that with
+ * {@code -prof gc} the allocation per operation is that of mapping and serializing alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserResponseSerializationBenchmark {
+    private static final int RANGE_SIZE = 10_000;
+
+    // dates as ISO strings, like Spring Boot configures it
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    // Jackson closes its target after writing, which nullOutputStream() would not outlive
+    private final OutputStream output = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+    private UserView user;
+    private List<UserView> users;
+
+    @Setup
+    public void setUp() {
+        users = BenchmarkUsers.create(RANGE_SIZE, true).stream()
+                .map(InMemoryUserRepository::toView)
+                .toList();
+        user = users.get(0);
+    }
+
+    @Benchmark
+    public void userAsDto() throws IOException {
+        objectMapper.writeValue(output, UserMapper.toDto(user));
+    }
+
+    @Benchmark
+    public void userAsView() throws IOException {
+        objectMapper.writeValue(output, user);
+    }
+
+    @Benchmark
+    public void rangeAsDtos() throws IOException {
+        List<UserDto> userDtos = new ArrayList<>(users.size());
+        for (UserView view : users) {
+            userDtos.add(UserMapper.toDto(view));
+        }
+        objectMapper.writeValue(output, userDtos);
+    }
+
+    @Benchmark
+    public void rangeAsViews() throws IOException {
+        objectMapper.writeValue(output, users);
+    }
+}
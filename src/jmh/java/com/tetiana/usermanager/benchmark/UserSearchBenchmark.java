@@ -0,0 +1,122 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.search.InvertedIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search latency of the in-memory index at a few million users. Names and streets come from small pools,
+ * as real ones do, while every email has a word of its own, so the dictionary holds millions of words.
+ * Each call runs a different query of the chosen kind, top 10.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserSearchBenchmark {
+    private static final String[] ONSETS = {"bo", "da", "ha", "ka", "ko", "le", "ma", "mi", "na", "ol",
+            "pa", "pe", "ro", "sa", "se", "ta", "te", "vi", "yu", "za"};
+    private static final String[] CODAS = {"bar", "ch", "den", "hor", "lan", "lyn", "mar", "nes", "rat", "sh",
+            "tor", "van", "vch", "zar", "ren"};
+    private static final String[] SUFFIXES = {"enko", "uk", "ko", "ych", "ova", "sky"};
+    private static final String[] CITIES = {"Kyiv", "Lviv", "Odesa", "Kharkiv", "Dnipro", "Poltava", "Sumy",
+            "Rivne", "Lutsk", "Uzhhorod"};
+    private static final int QUERIES = 1024;
+
+    @Param({"3000000"})
+    private int users;
+
+    @Param({"FULL_NAME", "PREFIXES", "ONE_LETTER", "INFIX", "EMAIL"})
+    private QueryKind kind;
+
+    private InvertedIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new InvertedIndex(1000);
+        for (int i = 1; i <= users; i++) {
+            String firstName = firstName(i);
+            String lastName = lastName(i);
+            index.put(i, firstName, lastName, firstName + "." + lastName + i + "@gamil.com",
+                    CITIES[i % CITIES.length] + ", " + lastName(i * 31 + 7) + " street " + i % 200);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = kind.query(random.nextInt(1, users + 1));
+        }
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        String query = queries[next++ & (QUERIES - 1)];
+        return index.search(query, 10);
+    }
+
+    static String firstName(int i) {
+        return capitalize(ONSETS[i % ONSETS.length] + CODAS[(i / 7) % CODAS.length] + "a");
+    }
+
+    static String lastName(int i) {
+        return capitalize(ONSETS[(i / 3) % ONSETS.length] + CODAS[(i / 11) % CODAS.length]
+                + SUFFIXES[(i / 13) % SUFFIXES.length]);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    public enum QueryKind {
+        FULL_NAME {
+            @Override
+            String query(int i) {
+                return firstName(i) + " " + lastName(i);
+            }
+        },
+        PREFIXES {
+            @Override
+            String query(int i) {
+                return firstName(i).substring(0, 3) + " " + lastName(i).substring(0, 2);
+            }
+        },
+        ONE_LETTER {
+            @Override
+            String query(int i) {
+                return firstName(i).substring(0, 1);
+            }
+        },
+        INFIX {
+            @Override
+            String query(int i) {
+                String lastName = lastName(i);
+                return lastName.substring(2, lastName.length() - 1);
+            }
+        },
+        EMAIL {
+            @Override
+            String query(int i) {
+                return lastName(i) + i;
+            }
+        };
+
+        abstract String query(int i);
+    }
+}
@@ -0,0 +1,151 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.UsermanagerApplication;
+import com.tetiana.usermanager.cache.UserCache;
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.changes.UserChangeLog;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.routing.ReadRouting;
+import com.tetiana.usermanager.search.UserSearchIndex;
+import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.service.impl.UserServiceImpl;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserService} hot paths, against an in-memory repository stub ({@code stub}: service cost only) and
+ * against the full Spring context on H2 ({@code h2}: service, transactions and JPA).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    private static final int USERS = 10_000;
+    /**
+     * About 100 users are born in a 200 day window.
+     */
+    private static final LocalDate RANGE_START = LocalDate.of(1980, 1, 1);
+    private static final LocalDate RANGE_END = RANGE_START.plusDays(200);
+
+    @Param({"stub", "h2"})
+    private String backend;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private UserService uncachedUserService;
+    private long firstId = 1;
+    private long nextId;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (backend.equals("stub")) {
+            UserRepository repository = InMemoryUserRepository.create(BenchmarkUsers.create(USERS, true));
+            userService = stubService(repository, USERS);
+            uncachedUserService = stubService(repository, 0);
+        } else {
+            // command line arguments, because application.properties and custom.properties outrank builder defaults
+            context = new SpringApplicationBuilder(UsermanagerApplication.class).run(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:mem:service-benchmark;MODE=MySQL;NON_KEYWORDS=USER",
+                    "--user_cache_max_size=0");
+            firstId = context.getBean(UserRepository.class).saveAll(BenchmarkUsers.create(USERS, false)).get(0).getId();
+            userService = context.getBean(UserService.class);
+            uncachedUserService = userService;
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public UserDto get() {
+        return userService.get(nextId());
+    }
+
+    @Benchmark
+    public UserDto getUncached() {
+        return uncachedUserService.get(nextId());
+    }
+
+    @Benchmark
+    public List<UserDto> getUsersByBirthDateRange() {
+        return userService.getUsersByBirthDateRange(RANGE_START, RANGE_END, false);
+    }
+
+    @Benchmark
+    public List<UserDto> getUsersByBirthDateRangeCompact() {
+        return userService.getUsersByBirthDateRange(RANGE_START, RANGE_END, true);
+    }
+
+    @Benchmark
+    public void partialUpdate() {
+        flip = !flip;
+        userService.partialUpdate(nextId(), Map.of("lastName", flip ? "Patched" : "Last",
+                "birthDate", flip ? "1990-01-01" : "1990-01-02"), null);
+    }
+
+    @Benchmark
+    public void verifyAge() {
+        userService.verifyAge(RANGE_START);
+    }
+
+    private long nextId() {
+        nextId = (nextId + 1) % USERS;
+        return firstId + nextId;
+    }
+
+    private static UserService stubService(UserRepository repository, int cacheSize) {
+        // the search index and statistics only read the data source when loaded, which the benchmarks never do
+        DataSource dataSource = new SimpleDriverDataSource();
+        // the change log writes to the database, which the stub leaves out
+        ReadRouting readRouting = new ReadRouting("", Duration.ofSeconds(5), Duration.ofSeconds(1));
+        UserChangeLog changeLog = new UserChangeLog(dataSource, null, readRouting) {
+            @Override
+            public void appendAll(ChangeType type, Collection<Long> userIds) {
+            }
+        };
+        UserServiceImpl service = new UserServiceImpl(repository, new UserCache(cacheSize, Duration.ofMinutes(10)),
+                new UserSearchIndex(dataSource, 1000, 1000, ""), new UserStatistics(dataSource, 1000), changeLog,
+                readRouting);
+        service.setAllowedAge(18);
+        service.setMaxPageSize(1000);
+        return service;
+    }
+}
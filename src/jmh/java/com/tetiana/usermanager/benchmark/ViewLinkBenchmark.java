@@ -0,0 +1,73 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.tetiana.usermanager.controller.UserController;
+import com.tetiana.usermanager.controller.UserLinks;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * {@code view} links for one range result: {@code linkTo(methodOn(...))} per row against {@link UserLinks},
+ * which resolves the base URI once and concatenates the id.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ViewLinkBenchmark {
+    @Param({"100", "10000"})
+    private int rows;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.addHeader("X-Forwarded-Host", "users.example.com");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<Link> methodOnPerRow() {
+        List<Link> links = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            links.add(linkTo(methodOn(UserController.class).get(id, null)).withRel("view"));
+        }
+        return links;
+    }
+
+    @Benchmark
+    public List<Link> template() {
+        UserLinks userLinks = UserLinks.forCurrentRequest();
+        List<Link> links = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            links.add(userLinks.view(id));
+        }
+        return links;
+    }
+}
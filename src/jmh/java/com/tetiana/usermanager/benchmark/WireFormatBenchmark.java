@@ -0,0 +1,88 @@
+package com.tetiana.usermanager.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.protobuf.CodedInputStream;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.mapper.UserProtobuf;
+import com.tetiana.usermanager.mapper.UserSequenceWriter;
+import com.tetiana.usermanager.service.UserDataFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A streamed 10k user range in each format callers can ask for: encoding as the server writes it, and decoding
+ * into {@link UserDto}s as a Java caller would. The encoded size is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+    private static final int RANGE_SIZE = 10_000;
+
+    @Param({"NDJSON", "CBOR", "SMILE", "PROTOBUF"})
+    private UserDataFormat format;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    private List<UserView> users;
+    private byte[] encoded;
+    private ObjectReader reader;
+
+    @Setup
+    public void setUp() throws IOException {
+        users = BenchmarkUsers.create(RANGE_SIZE, true).stream()
+                .map(InMemoryUserRepository::toView)
+                .toList();
+        encode();
+        encoded = output.toByteArray();
+        System.out.printf("%n%s: %d bytes for %d users, %.1f per user%n", format, encoded.length, RANGE_SIZE,
+                (double) encoded.length / RANGE_SIZE);
+        JsonFactory factory = switch (format) {
+            case CBOR -> new CBORFactory();
+            case SMILE -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        reader = new ObjectMapper(factory).registerModule(new JavaTimeModule()).readerFor(UserDto.class);
+    }
+
+    @Benchmark
+    public int encode() throws IOException {
+        output.reset();
+        UserSequenceWriter writer = UserSequenceWriter.of(format, output);
+        for (UserView user : users) {
+            writer.write(user);
+        }
+        writer.flush();
+        return output.size();
+    }
+
+    @Benchmark
+    public List<UserDto> decode() throws IOException {
+        if (format == UserDataFormat.PROTOBUF) {
+            return UserProtobuf.readList(CodedInputStream.newInstance(encoded));
+        }
+        return reader.<UserDto>readValues(encoded).readAll();
+    }
+}
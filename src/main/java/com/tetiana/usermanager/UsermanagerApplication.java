@@ -1,9 +1,7 @@
 package com.tetiana.usermanager;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class UsermanagerApplication {
@@ -11,9 +9,4 @@ public class UsermanagerApplication {
     public static void main(String[] args) {
         SpringApplication.run(UsermanagerApplication.class, args);
     }
-
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
 }
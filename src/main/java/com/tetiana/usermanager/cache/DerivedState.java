@@ -0,0 +1,148 @@
+package com.tetiana.usermanager.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * In-memory state computed from the user table, such as an index or aggregates, kept in step with it by
+ * changes applied once their transaction commits. Rolled back writes never reach it.
+ * <p>
+ * Loads run on a background thread and build a new state while the current one keeps serving. Changes
+ * committed during a load are applied to both and replayed on the new state before it replaces the old
+ * one, so a change the load's read missed is not lost. The state has to make its own changes and reads
+ * thread safe.
+ *
+ * @param <T> the state, changed in place
+ */
+@Slf4j
+public final class DerivedState<T> {
+    private final String name;
+    private final ExecutorService loader;
+    private final AtomicBoolean loadQueued = new AtomicBoolean();
+    private final Lock changes = new ReentrantLock();
+    private volatile T state;
+    private volatile boolean loaded;
+    // changes committed while a load runs, guarded by changes
+    private List<Consumer<T>> pending;
+
+    public DerivedState(String name, T empty) {
+        this.name = name;
+        this.state = empty;
+        this.loader = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, name + "-load");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public T get() {
+        return state;
+    }
+
+    /**
+     * @return whether a load has completed, so the state reflects the table and not just recent writes
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Applies the change after the current transaction commits, or right away outside of one. The write
+     * has committed by then, so a failing change is logged rather than thrown at the caller.
+     */
+    public void afterCommit(Consumer<T> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    /**
+     * Queues a load, unless one is already waiting to start.
+     */
+    public void load(Supplier<T> source) {
+        if (loadQueued.compareAndSet(false, true)) {
+            loader.execute(() -> {
+                loadQueued.set(false);
+                replace(source);
+            });
+        }
+    }
+
+    public void close() {
+        loader.shutdownNow();
+    }
+
+    private void apply(Consumer<T> change) {
+        changes.lock();
+        try {
+            change.accept(state);
+            if (pending != null) {
+                pending.add(change);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not update {}", name, e);
+        } finally {
+            changes.unlock();
+        }
+    }
+
+    private void replay(Consumer<T> change, T loading) {
+        try {
+            change.accept(loading);
+        } catch (RuntimeException e) {
+            log.warn("Could not update {}", name, e);
+        }
+    }
+
+    private void replace(Supplier<T> source) {
+        changes.lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            changes.unlock();
+        }
+        long start = System.nanoTime();
+        T loading = null;
+        try {
+            loading = source.get();
+        } catch (RuntimeException e) {
+            log.error("Could not load {}", name, e);
+        } finally {
+            changes.lock();
+            try {
+                if (loading != null) {
+                    for (Consumer<T> change : pending) {
+                        replay(change, loading);
+                    }
+                    state = loading;
+                    loaded = true;
+                }
+                pending = null;
+            } finally {
+                changes.unlock();
+            }
+        }
+        if (loading != null) {
+            log.info("Loaded {} in {} ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+    }
+}
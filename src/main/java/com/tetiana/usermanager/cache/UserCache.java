@@ -0,0 +1,87 @@
+package com.tetiana.usermanager.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tetiana.usermanager.dto.UserView;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of users by id (Caffeine, W-TinyLFU eviction). Hit, miss and eviction
+ * counters are published as the {@code cache.*} metrics with {@code cache=users}.
+ */
+@Component
+@PropertySource("classpath:custom.properties")
+public class UserCache implements MeterBinder {
+    private static final String NAME = "users";
+
+    private final AsyncCache<Long, UserView> cache;
+
+    public UserCache(@Value("${user_cache_max_size}") long maxSize,
+                     @Value("${user_cache_ttl}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Returns the cached user or loads it on the calling thread. Concurrent callers for the same id wait for
+     * that one load. The load runs outside the map's lock, so a blocking query neither holds up other keys
+     * nor pins a virtual thread to its carrier.
+     */
+    public UserView get(Long id, Function<Long, UserView> loader) {
+        CompletableFuture<UserView> loading = new CompletableFuture<>();
+        CompletableFuture<UserView> cached = cache.get(id, (key, executor) -> loading);
+        if (cached == loading) {
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException e) {
+                // failed futures are dropped from the cache
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return cached.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the user now and, when called inside a transaction, again after it completes, so a read
+     * racing with the write can not leave the pre-commit state cached.
+     */
+    public void invalidate(Long id) {
+        cache.synchronous().invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidate(id);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, NAME);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tetiana.usermanager.changes;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,61 @@
+package com.tetiana.usermanager.changes;
+
+import com.tetiana.usermanager.routing.ReadRouting;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Transactional outbox of user writes. Writers append a row per changed user within their own transaction,
+ * so a change is recorded exactly when its write commits. The rows are published by {@link UserChangeRelay},
+ * which is woken after the commit. Being told of every write, it also tells {@link ReadRouting} which users to
+ * read from the primary for a while.
+ */
+@Component
+public class UserChangeLog {
+    private static final String INSERT = "INSERT INTO user_change (user_id, type, changed_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserChangeRelay relay;
+    private final ReadRouting readRouting;
+
+    public UserChangeLog(DataSource dataSource, UserChangeRelay relay, ReadRouting readRouting) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.relay = relay;
+        this.readRouting = readRouting;
+    }
+
+    public void append(ChangeType type, Long userId) {
+        appendAll(type, List.of(userId));
+    }
+
+    public void appendAll(ChangeType type, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Timestamp changedAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT, userIds, userIds.size(), (statement, userId) -> {
+            statement.setLong(1, userId);
+            statement.setString(2, type.name());
+            statement.setTimestamp(3, changedAt);
+        });
+        readRouting.writtenAll(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    relay.wake();
+                }
+            });
+        } else {
+            relay.wake();
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.tetiana.usermanager.changes;
+
+import com.tetiana.usermanager.dto.UserChangeDto;
+import com.tetiana.usermanager.exception.ChangesExpiredException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Publishes the rows of {@link UserChangeLog} as a stream of changes with gap-free positions, in batches, on
+ * a background thread. It runs when a write commits and every {@code change_relay_interval} in case a
+ * wake-up was missed. Row ids can not serve as positions: they are handed out when a row is inserted, so a
+ * transaction committing late would slip a lower one in behind changes consumers have already read.
+ * <p>
+ * The latest {@code change_tail_size} changes are kept in memory for consumers that are keeping up,
+ * older ones are read from the table. Changes older than {@code change_retention} are deleted.
+ * <p>
+ * One relay is meant to run per database, so {@code change_relay_enabled} should be on for one instance only.
+ * A second relay can not corrupt the stream, since positions are only given to rows that have none and are
+ * unique, but it fails its batch whenever the two overlap. Instances without a relay read every change from
+ * the table and answer long polls when they time out.
+ */
+@Slf4j
+@Component
+@PropertySource("classpath:custom.properties")
+public class UserChangeRelay {
+    private static final String SELECT_UNPUBLISHED = "SELECT id, user_id, type, changed_at FROM user_change "
+            + "WHERE position IS NULL ORDER BY id LIMIT ?";
+    private static final String PUBLISH = "UPDATE user_change SET position = ? WHERE id = ? AND position IS NULL";
+    private static final String SELECT_PUBLISHED = "SELECT position, user_id, type, changed_at FROM user_change "
+            + "WHERE position > ? ORDER BY position LIMIT ?";
+    private static final String SELECT_POSITIONS = "SELECT MIN(position), COALESCE(MAX(position), 0) "
+            + "FROM user_change";
+    private static final String SELECT_FIRST_RETAINED = "SELECT MIN(position) FROM user_change";
+    // the latest change is kept, so that positions carry on from it after a restart
+    private static final String DELETE_EXPIRED = "DELETE FROM user_change WHERE changed_at < ? AND position < ?";
+    private static final Duration CLEANUP_INTERVAL = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration interval;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+    private final Lock relaying = new ReentrantLock();
+    // the tail holds positions tailStart to latest
+    private final ReadWriteLock tailLock = new ReentrantReadWriteLock();
+    private final UserChangeDto[] tail;
+    private long tailStart;
+    private volatile long latest = -1;
+    private volatile long firstRetained;
+    private volatile CompletableFuture<Void> published = new CompletableFuture<>();
+    // guarded by relaying
+    private boolean positionsKnown;
+    private Instant nextCleanup = Instant.EPOCH;
+
+    public UserChangeRelay(DataSource dataSource,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${change_relay_enabled}") boolean enabled,
+                           @Value("${change_relay_batch}") int batchSize,
+                           @Value("${change_relay_interval}") Duration interval,
+                           @Value("${change_tail_size}") int tailSize,
+                           @Value("${change_retention}") Duration retention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.interval = interval;
+        this.retention = retention;
+        this.tail = new UserChangeDto[tailSize];
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "user-change-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::relayAll, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Queues a run of the relay, unless one is already waiting to start.
+     */
+    public void wake() {
+        if (enabled && wakeQueued.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    wakeQueued.set(false);
+                    relayAll();
+                });
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                wakeQueued.set(false);
+            }
+        }
+    }
+
+    /**
+     * Publishes the next batch of recorded changes on the calling thread.
+     *
+     * @return number of changes published
+     */
+    public int relay() {
+        relaying.lock();
+        try {
+            if (!positionsKnown) {
+                readPositions();
+            }
+            List<UserChangeDto> batch;
+            try {
+                batch = transactionTemplate.execute(status -> publishBatch());
+            } catch (RuntimeException e) {
+                positionsKnown = false;
+                throw e;
+            }
+            if (!batch.isEmpty()) {
+                addToTail(batch);
+                CompletableFuture<Void> done = published;
+                published = new CompletableFuture<>();
+                done.complete(null);
+            }
+            return batch.size();
+        } finally {
+            relaying.unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} changes after position {@code since}, oldest first
+     * @throws ChangesExpiredException when changes after {@code since} have already been deleted
+     */
+    public List<UserChangeDto> read(long since, int limit) {
+        if (latest < 0) {
+            relaying.lock();
+            try {
+                if (!positionsKnown) {
+                    readPositions();
+                }
+            } finally {
+                relaying.unlock();
+            }
+        }
+        if (since < firstRetained - 1) {
+            throw new ChangesExpiredException("Changes since " + since + " are no longer kept, the oldest is at "
+                    + firstRetained);
+        }
+        tailLock.readLock().lock();
+        try {
+            if (enabled && since + 1 >= tailStart) {
+                List<UserChangeDto> changes = new ArrayList<>();
+                for (long position = since + 1; position <= latest && changes.size() < limit; position++) {
+                    changes.add(tail[(int) (position % tail.length)]);
+                }
+                return changes;
+            }
+        } finally {
+            tailLock.readLock().unlock();
+        }
+        return jdbcTemplate.query(SELECT_PUBLISHED, (resultSet, row) -> toChange(resultSet, resultSet.getLong(1)),
+                since, limit);
+    }
+
+    /**
+     * @return position of the latest change this relay has published, or read when it started
+     */
+    public long latest() {
+        return latest;
+    }
+
+    /**
+     * @return a future completed once there is a change after position {@code since}; completing it does
+     * not affect other callers
+     */
+    public CompletableFuture<Void> awaitAfter(long since) {
+        CompletableFuture<Void> next = published;
+        return latest > since ? CompletableFuture.completedFuture(null) : next.copy();
+    }
+
+    private void relayAll() {
+        try {
+            int relayed;
+            do {
+                relayed = relay();
+            } while (relayed == batchSize);
+            cleanUp();
+        } catch (RuntimeException e) {
+            log.warn("Could not relay user changes", e);
+        }
+    }
+
+    private List<UserChangeDto> publishBatch() {
+        List<Unpublished> batch = jdbcTemplate.query(SELECT_UNPUBLISHED, (resultSet, row) ->
+                new Unpublished(resultSet.getLong(1), toChange(resultSet, latest + row + 1)), batchSize);
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        int[][] updated = jdbcTemplate.batchUpdate(PUBLISH, batch, batch.size(), (statement, unpublished) -> {
+            statement.setLong(1, unpublished.change().getPosition());
+            statement.setLong(2, unpublished.id());
+        });
+        for (int[] counts : updated) {
+            for (int count : counts) {
+                if (count == 0) {
+                    throw new ConcurrencyFailureException("User changes were published by another relay");
+                }
+            }
+        }
+        return batch.stream().map(Unpublished::change).toList();
+    }
+
+    private void addToTail(List<UserChangeDto> batch) {
+        tailLock.writeLock().lock();
+        try {
+            for (UserChangeDto change : batch) {
+                tail[(int) (change.getPosition() % tail.length)] = change;
+            }
+            latest = batch.get(batch.size() - 1).getPosition();
+            tailStart = Math.max(tailStart, latest - tail.length + 1);
+        } finally {
+            tailLock.writeLock().unlock();
+        }
+    }
+
+    private void readPositions() {
+        long[] positions = jdbcTemplate.queryForObject(SELECT_POSITIONS, (resultSet, row) -> {
+            long max = resultSet.getLong(2);
+            long min = resultSet.getLong(1);
+            // nothing published yet
+            return new long[]{resultSet.wasNull() ? max + 1 : min, max};
+        });
+        tailLock.writeLock().lock();
+        try {
+            firstRetained = positions[0];
+            latest = positions[1];
+            tailStart = latest + 1;
+        } finally {
+            tailLock.writeLock().unlock();
+        }
+        positionsKnown = true;
+    }
+
+    private void cleanUp() {
+        relaying.lock();
+        try {
+            Instant now = Instant.now();
+            if (now.isBefore(nextCleanup) || !positionsKnown) {
+                return;
+            }
+            int deleted = jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(now.minus(retention)), latest);
+            if (deleted > 0) {
+                firstRetained = jdbcTemplate.queryForObject(SELECT_FIRST_RETAINED, Long.class);
+                log.info("Deleted {} user changes older than {}", deleted, retention);
+            }
+            nextCleanup = now.plus(CLEANUP_INTERVAL);
+        } finally {
+            relaying.unlock();
+        }
+    }
+
+    private static UserChangeDto toChange(ResultSet resultSet, long position) throws SQLException {
+        return new UserChangeDto(position, resultSet.getLong(2), ChangeType.valueOf(resultSet.getString(3)),
+                resultSet.getTimestamp(4).toInstant());
+    }
+
+    private record Unpublished(long id, UserChangeDto change) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.tetiana.usermanager.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sizes the connection pool of the {@code prod} profile. A connection is only busy while the database works
+ * on its statement, so beyond about two per database core (plus one to cover disk waits) more connections
+ * just queue inside MySQL. The pool also stays within the server's {@code max_connections} shared by all
+ * application instances. {@code db_pool_size} overrides the result, {@code db_cores} defaults to the cores
+ * of this machine.
+ */
+@Slf4j
+@Configuration
+@Profile("prod")
+public class DataSourcePoolConfig {
+
+    @Bean
+    public static BeanPostProcessor dataSourcePoolSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    int size = poolSize(environment);
+                    hikari.setMaximumPoolSize(size);
+                    log.info("Connection pool size {}", size);
+                }
+                return bean;
+            }
+        };
+    }
+
+    static int poolSize(Environment environment) {
+        Integer size = environment.getProperty("db_pool_size", Integer.class);
+        if (size != null) {
+            return size;
+        }
+        int cores = environment.getProperty("db_cores", Integer.class, Runtime.getRuntime().availableProcessors());
+        int maxConnections = environment.getRequiredProperty("db_max_connections", Integer.class);
+        int instances = environment.getRequiredProperty("db_app_instances", Integer.class);
+        return Math.max(1, Math.min(cores * 2 + 1, maxConnections / instances));
+    }
+}
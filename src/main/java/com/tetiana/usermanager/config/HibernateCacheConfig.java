@@ -0,0 +1,58 @@
+package com.tetiana.usermanager.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.repository.UserRepository;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Second-level cache regions, held by Caffeine through JCache and bounded by {@code hibernate-cache.conf}.
+ * Hit, miss and eviction counters of every region are published as the {@code cache.*} metrics, tagged
+ * with the region name, next to those of the {@code users} cache.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    private static final URI CONFIG = URI.create("classpath:hibernate-cache.conf");
+    private static final List<String> REGIONS = List.of(User.CACHE_REGION,
+            UserRepository.BIRTH_DATE_RANGE_REGION,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+            RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME);
+
+    /**
+     * Built here rather than by Hibernate, which would resolve the configuration to a {@code jar:} URL
+     * that Caffeine can not read once the application is packaged. Hibernate closes it on shutdown.
+     */
+    @Bean(destroyMethod = "")
+    public CacheManager hibernateCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(CONFIG, getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : REGIONS) {
+                // creates the region from its configuration if Hibernate has not asked for it yet
+                Cache<?, ?> cache = hibernateCacheManager.getCache(region).unwrap(Cache.class);
+                CaffeineCacheMetrics.monitor(registry, cache, region);
+            }
+        };
+    }
+}
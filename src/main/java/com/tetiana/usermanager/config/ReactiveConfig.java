@@ -0,0 +1,83 @@
+package com.tetiana.usermanager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2CodecSupport;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.stream.Stream;
+
+/**
+ * R2DBC access for the {@code reactive} profile. The connection pool is deliberately not a bean: Boot drops
+ * the JDBC {@code DataSource} as soon as the context has a connection factory, and Flyway and
+ * {@link com.tetiana.usermanager.service.UserService} still need it.
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveConfig {
+    private static final MediaType ANY_JSON = MediaType.valueOf("application/*+json");
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(R2dbcProperties properties) {
+        R2dbcProperties.Pool pool = properties.getPool();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(
+                        ConnectionFactoryBuilder.withUrl(properties.getUrl())
+                                .username(properties.getUsername())
+                                .password(properties.getPassword())
+                                .build())
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    /**
+     * Transactions over the R2DBC pool, for writes that record a change along with the user. Only the operator
+     * is a bean, a transaction manager bean would compete with JPA's.
+     */
+    @Bean
+    public TransactionalOperator reactiveTransactionalOperator(DatabaseClient databaseClient) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+    }
+
+    /**
+     * Spring HATEOAS registers object mappers for {@link RepresentationModel} per JSON media type, and a type
+     * with registrations can't be written in any other one, so {@code application/x-ndjson} needs its own.
+     * Streamed users are written like the servlet list response. The JSON types are only filled in where
+     * nothing else claimed them, like in clients built from the same customizers.
+     */
+    @Bean
+    public CodecCustomizer ndjsonCodecCustomizer(ObjectMapper objectMapper) {
+        return configurer -> configurer.defaultCodecs().configureDefaultCodec(codec -> {
+            if (codec instanceof Jackson2CodecSupport jacksonCodec) {
+                jacksonCodec.registerObjectMappersForType(RepresentationModel.class, mappers -> Stream.of(
+                                MediaType.APPLICATION_JSON, ANY_JSON, MediaType.APPLICATION_NDJSON)
+                        .forEach(mediaType -> mappers.putIfAbsent(mediaType, objectMapper)));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
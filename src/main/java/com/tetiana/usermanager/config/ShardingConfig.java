@@ -0,0 +1,71 @@
+package com.tetiana.usermanager.config;
+
+import com.tetiana.usermanager.sharding.ShardMap;
+import com.tetiana.usermanager.sharding.ShardRebalancer;
+import com.tetiana.usermanager.sharding.ShardedUserStore;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits the user table over the main database and those listed in {@code shard_urls}, comma separated, for
+ * the {@code sharded} profile. The shards get pools configured like the main one and the same migrations.
+ * A shard's number is its place in the list, so new shards are only ever added at the end. Everything but
+ * the user table stays in the main database.
+ */
+@Configuration
+@Profile("sharded")
+@PropertySource("classpath:custom.properties")
+public class ShardingConfig {
+    private final List<HikariDataSource> shardPools = new ArrayList<>();
+
+    @Bean
+    @DependsOn("flywayInitializer")
+    public ShardMap shardMap(DataSource dataSource, @Value("${shard_urls}") List<String> shardUrls) {
+        return new ShardMap(dataSource, shardUrls.size() + 1);
+    }
+
+    @Bean
+    public ShardedUserStore shardedUserStore(DataSource dataSource, ShardMap shardMap,
+                                             @Value("${shard_urls}") List<String> shardUrls,
+                                             @Value("${shard_query_threads}") int queryThreads) {
+        if (!(dataSource instanceof HikariDataSource main)) {
+            throw new IllegalStateException("Shards are configured like the main Hikari pool, but the data source is "
+                    + dataSource.getClass().getName());
+        }
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(main);
+        for (String url : shardUrls) {
+            HikariConfig config = new HikariConfig();
+            main.copyStateTo(config);
+            config.setJdbcUrl(url);
+            config.setPoolName("shard-" + shards.size());
+            HikariDataSource shard = new HikariDataSource(config);
+            shardPools.add(shard);
+            Flyway.configure().dataSource(shard).load().migrate();
+            shards.add(shard);
+        }
+        return new ShardedUserStore(shards, shardMap, queryThreads);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardedUserStore shardedUserStore, ShardMap shardMap) {
+        return new ShardRebalancer(shardedUserStore, shardMap);
+    }
+
+    @PreDestroy
+    public void close() {
+        shardPools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.service.ReactiveUserService;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * The {@link UserController} contract on WebFlux, active with the {@code reactive} profile. The range is
+ * streamed as rows arrive: request {@code application/x-ndjson} to get one user per line, written only as
+ * fast as the client reads. Writes honour {@code If-Match} with the tag a read returned, as on the servlet stack.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/users")
+@AllArgsConstructor
+@Validated
+public class ReactiveUserController {
+    private final ReactiveUserService userService;
+
+    /**
+     * Answers {@code If-None-Match} with the current tag by a bodiless 304.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserView>> get(@PathVariable Long id, ServerWebExchange exchange) {
+        return userService.get(id).mapNotNull(user -> {
+            String eTag = UserETag.of(user.version());
+            if (exchange.checkNotModified(eTag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(eTag).body(user);
+        });
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<UserDto> getUsersByBirthDateRange(
+            @RequestParam("start_date") LocalDate startDate,
+            @RequestParam("end_date") LocalDate endDate,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact,
+            ServerHttpRequest request) {
+        Flux<UserDto> users = userService.getUsersByBirthDateRange(startDate, endDate);
+        if (compact) {
+            return users;
+        }
+        UserLinks links = UserLinks.of(UriComponentsBuilder.fromUri(request.getURI())
+                .replaceQuery(null)
+                .toUriString());
+        return users.map(user -> user.add(links.view(user.getId())));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Void> create(@RequestBody @Valid UserDto user) {
+        return userService.create(user);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Void> delete(@PathVariable Long id,
+                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.delete(id, UserETag.expectedVersion(ifMatch));
+    }
+
+    @PutMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Void> updateWhole(@PathVariable Long id,
+                                  @RequestBody @Valid UserDto user,
+                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.update(id, user, UserETag.expectedVersion(ifMatch));
+    }
+
+    @PatchMapping("/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<Void> updatePart(@PathVariable Long id,
+                                 @RequestBody Map<String, Object> fieldsMap,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.partialUpdate(id, fieldsMap, UserETag.expectedVersion(ifMatch));
+    }
+}
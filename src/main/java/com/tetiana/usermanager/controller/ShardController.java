@@ -0,0 +1,27 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.RebalanceResultDto;
+import com.tetiana.usermanager.sharding.ShardRebalancer;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Profile("sharded & !reactive")
+@RequestMapping("/users/shards")
+@AllArgsConstructor
+public class ShardController {
+    private final ShardRebalancer shardRebalancer;
+
+    /**
+     * Spreads users evenly over the shards, for instance after one was added, while they stay available.
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<RebalanceResultDto> rebalance() {
+        return new ResponseEntity<>(shardRebalancer.rebalance(), HttpStatus.OK);
+    }
+}
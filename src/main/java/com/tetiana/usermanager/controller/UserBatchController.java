@@ -0,0 +1,40 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.BatchResultDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.service.UserBatchService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive & !sharded")
+@RequestMapping("/users/batch")
+@AllArgsConstructor
+public class UserBatchController {
+    private final UserBatchService userBatchService;
+
+    @PostMapping
+    public ResponseEntity<BatchResultDto> createAll(@RequestBody List<UserDto> users) {
+        return new ResponseEntity<>(userBatchService.createAll(users), HttpStatus.OK);
+    }
+
+    @PutMapping
+    public ResponseEntity<BatchResultDto> updateAll(@RequestBody List<UserDto> users) {
+        return new ResponseEntity<>(userBatchService.updateAll(users), HttpStatus.OK);
+    }
+
+    @DeleteMapping
+    public ResponseEntity<BatchResultDto> deleteAll(@RequestBody List<Long> ids) {
+        return new ResponseEntity<>(userBatchService.deleteAll(ids), HttpStatus.OK);
+    }
+}
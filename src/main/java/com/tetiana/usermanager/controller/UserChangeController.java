@@ -0,0 +1,103 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.UserChangeDto;
+import com.tetiana.usermanager.dto.UserChangePageDto;
+import com.tetiana.usermanager.service.UserChangeService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/users/changes")
+public class UserChangeController {
+    private static final int STREAM_PAGE_SIZE = 100;
+    // an idle stream sends a comment this often, which also notices clients that have gone
+    private static final Duration STREAM_KEEP_ALIVE = Duration.ofSeconds(30);
+
+    private final UserChangeService userChangeService;
+    private final AsyncTaskExecutor taskExecutor;
+
+    public UserChangeController(UserChangeService userChangeService,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                AsyncTaskExecutor taskExecutor) {
+        this.userChangeService = userChangeService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Long poll: answers at once when there are changes after {@code since}, otherwise as soon as one is
+     * made or, with none, after {@code wait} seconds. Ask again with the returned {@code next}.
+     */
+    @GetMapping
+    public CompletableFuture<ResponseEntity<UserChangePageDto>> getChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "wait", defaultValue = "30") int wait) {
+        return userChangeService.getChanges(since, limit, Duration.ofSeconds(wait))
+                .thenApply(page -> new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    /**
+     * Server-sent events, one {@code change} event per change with its position as the event id, so a
+     * reconnecting client resumes after the last one it got through {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // fails before the stream starts when the changes are no longer kept
+        CompletableFuture<UserChangePageDto> first = userChangeService.getChanges(
+                lastEventId != null ? lastEventId : since, STREAM_PAGE_SIZE, STREAM_KEEP_ALIVE);
+        SseEmitter emitter = new SseEmitter();
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+        send(emitter, first, open);
+        return emitter;
+    }
+
+    private void send(SseEmitter emitter, CompletableFuture<UserChangePageDto> page, AtomicBoolean open) {
+        // sent on the task executor, since a page completes on the relay's thread
+        page.thenAcceptAsync(changes -> {
+            if (!open.get()) {
+                return;
+            }
+            try {
+                if (changes.getChanges().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                }
+                for (UserChangeDto change : changes.getChanges()) {
+                    emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.getPosition()))
+                            .name("change")
+                            .data(change, MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException e) {
+                // the client has gone, the container completes the emitter
+                open.set(false);
+                return;
+            }
+            send(emitter, userChangeService.getChanges(changes.getNext(), STREAM_PAGE_SIZE, STREAM_KEEP_ALIVE),
+                    open);
+        }, taskExecutor).exceptionally(error -> {
+            emitter.completeWithError(error);
+            return null;
+        });
+    }
+}
@@ -1,10 +1,17 @@
 package com.tetiana.usermanager.controller;
 
 import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.mapper.UserSequenceWriter;
+import com.tetiana.usermanager.service.UserDataFormat;
 import com.tetiana.usermanager.service.UserService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,35 +21,125 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("/users")
 @AllArgsConstructor
 @Validated
 public class UserController {
+    private static final List<UserDataFormat> STREAM_FORMATS =
+            List.of(UserDataFormat.NDJSON, UserDataFormat.CBOR, UserDataFormat.SMILE, UserDataFormat.PROTOBUF);
+
     private final UserService userService;
 
+    /**
+     * Answers {@code If-None-Match} with the current tag by a bodiless 304. The user is written straight from
+     * its view, as a {@code UserDto} without links.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> get(@PathVariable Long id) {
-        return new ResponseEntity<>(userService.get(id), HttpStatus.OK);
+    public ResponseEntity<UserView> get(@PathVariable Long id, WebRequest request) {
+        UserView user = userService.getView(id);
+        String eTag = UserETag.of(user.version());
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(user);
     }
 
+    /**
+     * Compact users carry no links, so they are written straight from their views.
+     */
     @GetMapping
-    public ResponseEntity<List<UserDto>> getUsersByBirthDateRange(
+    public ResponseEntity<List<?>> getUsersByBirthDateRange(
+            @RequestParam("start_date") LocalDate startDate,
+            @RequestParam("end_date") LocalDate endDate,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        return new ResponseEntity<>(compact
+                ? userService.getViewsByBirthDateRange(startDate, endDate)
+                : userService.getUsersByBirthDateRange(startDate, endDate, false),
+                HttpStatus.OK);
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<List<UserDto>> getUsersByEmail(
+            @RequestParam("email") String email,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        return new ResponseEntity<>(userService.getUsersByEmail(email, compact), HttpStatus.OK);
+    }
+
+    @GetMapping(params = "phone")
+    public ResponseEntity<List<UserDto>> getUsersByPhoneNumber(
+            @RequestParam("phone") String phoneNumber,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        return new ResponseEntity<>(userService.getUsersByPhoneNumber(phoneNumber, compact), HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserDto>> searchUsers(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        return new ResponseEntity<>(userService.searchUsers(query, limit, compact), HttpStatus.OK);
+    }
+
+    @PostMapping("/search/rebuild")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void rebuildSearchIndex() {
+        userService.rebuildSearchIndex();
+    }
+
+    @GetMapping("/page")
+    public ResponseEntity<UserPageDto> getUsersPage(
             @RequestParam("start_date") LocalDate startDate,
-            @RequestParam("end_date") LocalDate endDate) {
-        return new ResponseEntity<>(userService.getUsersByBirthDateRange(startDate, endDate),
+            @RequestParam("end_date") LocalDate endDate,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "100") int size,
+            @RequestParam(value = "compact", defaultValue = "false") boolean compact) {
+        return new ResponseEntity<>(
+                userService.getUsersPageByBirthDateRange(startDate, endDate, cursor, size, compact),
                 HttpStatus.OK);
     }
 
+    /**
+     * Streams NDJSON, or CBOR, Smile or Protobuf when the {@code Accept} header asks for one of them.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsersByBirthDateRange(
+            @RequestParam("start_date") LocalDate startDate,
+            @RequestParam("end_date") LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        UserDataFormat format = UserDataFormat.negotiate(accept, STREAM_FORMATS);
+        StreamingResponseBody body = outputStream -> {
+            UserSequenceWriter writer = UserSequenceWriter.of(format, outputStream);
+            userService.streamUsersByBirthDateRange(startDate, endDate, user -> {
+                try {
+                    writer.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .body(body);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public void create(@RequestBody @Valid UserDto user) {
@@ -51,21 +148,24 @@ public class UserController {
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
-    public void delete(@PathVariable Long id) {
-        userService.delete(id);
+    public void delete(@PathVariable Long id,
+                       @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.delete(id, UserETag.expectedVersion(ifMatch));
     }
 
     @PutMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public void updateWhole(@PathVariable Long id,
-                            @RequestBody @Valid UserDto user) {
-        userService.update(id, user);
+                            @RequestBody @Valid UserDto user,
+                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.update(id, user, UserETag.expectedVersion(ifMatch));
     }
 
     @PatchMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public void updatePart(@PathVariable Long id,
-                           @RequestBody Map<Object, Object> fieldsMap) {
-        userService.partialUpdate(id, fieldsMap);
+                           @RequestBody Map<String, Object> fieldsMap,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        userService.partialUpdate(id, fieldsMap, UserETag.expectedVersion(ifMatch));
     }
 }
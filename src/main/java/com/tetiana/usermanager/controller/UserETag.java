@@ -0,0 +1,35 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+
+/**
+ * Strong entity tags for users, made from the optimistic lock version: {@code "3"} for version 3.
+ */
+final class UserETag {
+    private UserETag() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @return the version an {@code If-Match} header asks for, or null when the header is absent or {@code *}
+     * @throws PreconditionFailedException when the header lists tags no user version can match, like weak
+     *                                     or foreign ones. Clients are expected to send back the one tag they got.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // not one of ours
+            }
+        }
+        throw new PreconditionFailedException("If-Match " + ifMatch + " does not match the current user");
+    }
+}
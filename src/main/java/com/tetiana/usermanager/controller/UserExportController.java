@@ -0,0 +1,62 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserExportService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@Profile("!reactive & !sharded")
+@RequestMapping("/users/export")
+@AllArgsConstructor
+public class UserExportController {
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final List<UserDataFormat> FORMATS = List.of(UserDataFormat.NDJSON, UserDataFormat.CSV,
+            UserDataFormat.CBOR, UserDataFormat.SMILE, UserDataFormat.PROTOBUF);
+
+    private final UserExportService userExportService;
+
+    /**
+     * Exports in the {@code format} given, else in the one the {@code Accept} header asks for, NDJSON by default.
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", required = false) UserDataFormat requestedFormat,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+            @RequestParam(value = "start_date", required = false) LocalDate startDate,
+            @RequestParam(value = "end_date", required = false) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        UserDataFormat format = requestedFormat != null ? requestedFormat : UserDataFormat.negotiate(accept, FORMATS);
+        UserExportService.UserExport export = userExportService.export(format, startDate, endDate);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("users." + format.getExtension())
+                        .build()
+                        .toString());
+        if (!gzip) {
+            return response.body(export::writeTo);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(outputStream -> {
+                    GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+                    export.writeTo(gzipStream);
+                    gzipStream.finish();
+                });
+    }
+}
@@ -0,0 +1,72 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.ImportJobDto;
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserImportService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+@RestController
+@Profile("!reactive & !sharded")
+@RequestMapping("/users/import")
+@AllArgsConstructor
+public class UserImportController {
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final UserImportService userImportService;
+
+    @PostMapping(consumes = TEXT_CSV)
+    public ResponseEntity<ImportJobDto> importCsv(InputStream body) {
+        return new ResponseEntity<>(withLinks(userImportService.importUsers(body, UserDataFormat.CSV)),
+                HttpStatus.OK);
+    }
+
+    @PostMapping(consumes = APPLICATION_NDJSON)
+    public ResponseEntity<ImportJobDto> importNdjson(InputStream body) {
+        return new ResponseEntity<>(withLinks(userImportService.importUsers(body, UserDataFormat.NDJSON)),
+                HttpStatus.OK);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDto>> getJobs() {
+        return new ResponseEntity<>(userImportService.getJobs().stream().map(this::withLinks).toList(),
+                HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> getJob(@PathVariable String id) {
+        return new ResponseEntity<>(withLinks(userImportService.getJob(id)), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/rejects")
+    public ResponseEntity<Resource> getRejects(@PathVariable String id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(new FileSystemResource(userImportService.getRejects(id)));
+    }
+
+    private ImportJobDto withLinks(ImportJobDto job) {
+        job.add(linkTo(methodOn(UserImportController.class).getJob(job.getId())).withSelfRel());
+        if (job.getRejected() > 0) {
+            job.add(linkTo(methodOn(UserImportController.class).getRejects(job.getId())).withRel("rejects"));
+        }
+        return job;
+    }
+}
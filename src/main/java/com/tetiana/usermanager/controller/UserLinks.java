@@ -0,0 +1,35 @@
+package com.tetiana.usermanager.controller;
+
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+
+/**
+ * {@code view} links to {@link UserController#get(Long)}, with the base URI resolved once per request. Expanding
+ * a link is then a string concatenation instead of a {@code methodOn} proxy call and a URI builder per row.
+ */
+public final class UserLinks {
+    private final String viewPrefix;
+
+    private UserLinks(String viewPrefix) {
+        this.viewPrefix = viewPrefix;
+    }
+
+    /**
+     * Resolves the base URI from the current request, honouring forwarded headers like {@code linkTo} does.
+     */
+    public static UserLinks forCurrentRequest() {
+        return new UserLinks(linkTo(UserController.class).toUri().toString() + "/");
+    }
+
+    /**
+     * For callers without a current servlet request, like the reactive stack.
+     */
+    public static UserLinks of(String usersUri) {
+        return new UserLinks(usersUri + "/");
+    }
+
+    public Link view(Long id) {
+        return Link.of(viewPrefix + id, "view");
+    }
+}
@@ -0,0 +1,42 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.AgeGroupDto;
+import com.tetiana.usermanager.dto.BirthCountDto;
+import com.tetiana.usermanager.service.BirthPeriod;
+import com.tetiana.usermanager.service.UserStatisticsService;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@Profile("!reactive")
+@RequestMapping("/users/stats")
+@AllArgsConstructor
+public class UserStatisticsController {
+    private final UserStatisticsService userStatisticsService;
+
+    @GetMapping("/ages")
+    public ResponseEntity<List<AgeGroupDto>> getAgeGroups(
+            @RequestParam(value = "width", defaultValue = "10") int width) {
+        return new ResponseEntity<>(userStatisticsService.getAgeGroups(width), HttpStatus.OK);
+    }
+
+    @GetMapping("/births")
+    public ResponseEntity<List<BirthCountDto>> getBirthCounts(
+            @RequestParam(value = "by", defaultValue = "YEAR") BirthPeriod period) {
+        return new ResponseEntity<>(userStatisticsService.getBirthCounts(period), HttpStatus.OK);
+    }
+
+    @GetMapping("/birthdays")
+    public ResponseEntity<List<BirthCountDto>> getUpcomingBirthdays(
+            @RequestParam(value = "days", defaultValue = "30") int days) {
+        return new ResponseEntity<>(userStatisticsService.getUpcomingBirthdays(days), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,19 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Users aged from {@code fromAge} to {@code toAge}, both inclusive.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AgeGroupDto {
+    private int fromAge;
+
+    private int toAge;
+
+    private long users;
+}
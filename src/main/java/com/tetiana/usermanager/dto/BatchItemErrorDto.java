@@ -0,0 +1,21 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchItemErrorDto {
+    /**
+     * Position of the item in the request body.
+     */
+    private int index;
+
+    private Long id;
+
+    private List<String> messages;
+}
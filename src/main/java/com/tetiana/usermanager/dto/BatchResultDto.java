@@ -0,0 +1,18 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchResultDto {
+    private int processed;
+
+    private int succeeded;
+
+    private List<BatchItemErrorDto> errors;
+}
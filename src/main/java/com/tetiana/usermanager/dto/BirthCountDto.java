@@ -0,0 +1,18 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Users born, or having their birthday, in a period: a year ({@code 1990}), a month ({@code 1990-05})
+ * or a day ({@code 2024-05-17}).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BirthCountDto {
+    private String period;
+
+    private long users;
+}
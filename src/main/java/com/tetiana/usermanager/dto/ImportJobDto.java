@@ -0,0 +1,29 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.hateoas.RepresentationModel;
+
+import java.time.LocalDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportJobDto extends RepresentationModel<ImportJobDto> {
+    private String id;
+
+    private String status;
+
+    private long rowsRead;
+
+    private long rejected;
+
+    private long committed;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,32 @@
+package com.tetiana.usermanager.dto;
+
+import com.tetiana.usermanager.exception.InvalidCursorException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in a birth date range, i.e. the (birthDate, id) of the last user on a page.
+ * Serialized as {@code <birthDate>_<id>}, e.g. {@code 2000-01-01_42}.
+ */
+public record PageCursor(LocalDate birthDate, Long id) {
+    private static final char SEPARATOR = '_';
+
+    public static PageCursor parse(String cursor) {
+        int separator = cursor.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new InvalidCursorException("Malformed cursor " + cursor);
+        }
+        try {
+            return new PageCursor(LocalDate.parse(cursor.substring(0, separator)),
+                    Long.parseLong(cursor.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor " + cursor);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return birthDate.toString() + SEPARATOR + id;
+    }
+}
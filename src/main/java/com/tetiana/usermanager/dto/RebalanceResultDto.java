@@ -0,0 +1,14 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RebalanceResultDto {
+    private int bucketsMoved;
+
+    private int usersMoved;
+}
@@ -0,0 +1,25 @@
+package com.tetiana.usermanager.dto;
+
+import com.tetiana.usermanager.changes.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A committed write to one user, at its position in the change stream. Consumers read the user itself
+ * when they need more than the fact that it changed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserChangeDto {
+    private long position;
+
+    private long userId;
+
+    private ChangeType type;
+
+    private Instant changedAt;
+}
@@ -0,0 +1,20 @@
+package com.tetiana.usermanager.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserChangePageDto {
+    private List<UserChangeDto> changes;
+
+    /**
+     * Position to ask for changes {@code since} next: the last one returned, or the one asked for when none
+     * were.
+     */
+    private long next;
+}
@@ -0,0 +1,23 @@
+package com.tetiana.usermanager.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.tetiana.usermanager.mapper.UserViewSerializer;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only projection of the {@code user} columns needed to build a {@link UserDto},
+ * selected without hydrating managed {@code User} entities. {@code version} is the optimistic lock
+ * version, which also serves as the user's entity tag. Read responses without links are written straight from
+ * it, as a {@code UserDto} would be.
+ */
+@JsonSerialize(using = UserViewSerializer.class)
+public record UserView(Long id,
+                       String email,
+                       String firstName,
+                       String lastName,
+                       LocalDate birthDate,
+                       String address,
+                       String phoneNumber,
+                       long version) {
+}
@@ -1,9 +1,14 @@
 package com.tetiana.usermanager.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -13,17 +18,33 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDate;
+import java.util.Locale;
 
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@Table(name = "user", indexes = {
+        @Index(name = "idx_user_birth_date_id", columnList = "birthDate, id"),
+        @Index(name = User.EMAIL_CONSTRAINT, columnList = "email", unique = true),
+        @Index(name = "idx_user_phone_number", columnList = "phoneNumber")})
 @Getter
 @Setter
 @NoArgsConstructor
 @EqualsAndHashCode
 public class User {
+    public static final String EMAIL_CONSTRAINT = "uk_user_email";
+    public static final String CACHE_REGION = "user";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "id_generator", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "user", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Email may not be blank")
@@ -44,4 +65,18 @@ public class User {
 
     @Pattern(regexp = "(^$|[0-9]{10})", message = "Wrong phone number format")
     private String phoneNumber;
+
+    @Version
+    private long version;
+
+    public void setEmail(String email) {
+        this.email = normalizeEmail(email);
+    }
+
+    /**
+     * Emails are stored lower-cased, so the unique index also catches duplicates that differ only in case.
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,7 @@
+package com.tetiana.usermanager.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
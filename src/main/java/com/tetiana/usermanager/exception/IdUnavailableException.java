@@ -0,0 +1,7 @@
+package com.tetiana.usermanager.exception;
+
+public class IdUnavailableException extends RuntimeException {
+    public IdUnavailableException(String message) {
+        super(message);
+    }
+}
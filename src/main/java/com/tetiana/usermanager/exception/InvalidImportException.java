@@ -0,0 +1,7 @@
+package com.tetiana.usermanager.exception;
+
+public class InvalidImportException extends RuntimeException {
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.tetiana.usermanager.exception;
+
+public class StatisticsNotReadyException extends RuntimeException {
+    public StatisticsNotReadyException(String message) {
+        super(message);
+    }
+}
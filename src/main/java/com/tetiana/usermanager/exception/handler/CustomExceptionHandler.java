@@ -1,9 +1,18 @@
 package com.tetiana.usermanager.exception.handler;
 
 import com.tetiana.usermanager.dto.ErrorResponseDto;
+import com.tetiana.usermanager.exception.ChangesExpiredException;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
 import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.exception.InvalidCursorException;
+import com.tetiana.usermanager.exception.InvalidImportException;
+import com.tetiana.usermanager.exception.InvalidPatchException;
 import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.exception.StatisticsNotReadyException;
 import com.tetiana.usermanager.exception.UserUnderAgeException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -17,6 +26,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@Profile("!reactive")
 public class CustomExceptionHandler {
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponseDto> handleMethodArgumentNotValidException
@@ -52,6 +62,50 @@ public class CustomExceptionHandler {
                 HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidCursorException
+            (InvalidCursorException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidPatchException
+            (InvalidPatchException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidImportException
+            (InvalidImportException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ResponseEntity<ErrorResponseDto> handleDuplicateEmailException
+            (DuplicateEmailException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.CONFLICT.getReasonPhrase(),
+                HttpStatus.CONFLICT.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<ErrorResponseDto> handleNotFoundException
             (NotFoundException exception, ServletWebRequest servletWebRequest) {
@@ -63,6 +117,50 @@ public class CustomExceptionHandler {
                 HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponseDto> handlePreconditionFailedException
+            (PreconditionFailedException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.getReasonPhrase(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponseDto> handleOptimisticLockingFailureException
+            (OptimisticLockingFailureException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.getReasonPhrase(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                List.of("User was changed by a concurrent request"),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(StatisticsNotReadyException.class)
+    public ResponseEntity<ErrorResponseDto> handleStatisticsNotReadyException
+            (StatisticsNotReadyException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<ErrorResponseDto> handleChangesExpiredException
+            (ChangesExpiredException exception, ServletWebRequest servletWebRequest) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.GONE.getReasonPhrase(),
+                HttpStatus.GONE.value(),
+                List.of(exception.getMessage()),
+                servletWebRequest.getRequest().getRequestURI()),
+                HttpStatus.GONE);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponseDto> handleException
             (Exception exception, ServletWebRequest servletWebRequest) {
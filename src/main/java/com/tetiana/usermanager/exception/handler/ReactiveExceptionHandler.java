@@ -0,0 +1,129 @@
+package com.tetiana.usermanager.exception.handler;
+
+import com.tetiana.usermanager.dto.ErrorResponseDto;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.exception.IdUnavailableException;
+import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.exception.InvalidPatchException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.exception.UserUnderAgeException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@link CustomExceptionHandler}'s statuses and error body for the reactive stack.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveExceptionHandler {
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponseDto> handleWebExchangeBindException
+            (WebExchangeBindException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                exception.getBindingResult().getFieldErrors()
+                        .stream().map(FieldError::getDefaultMessage).collect(Collectors.toList()),
+                request.getPath().value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UserUnderAgeException.class)
+    public ResponseEntity<ErrorResponseDto> handleUserUnderAgeException
+            (UserUnderAgeException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IncorrectDateRangeException.class)
+    public ResponseEntity<ErrorResponseDto> handleIncorrectDateRangeException
+            (IncorrectDateRangeException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidPatchException
+            (InvalidPatchException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.BAD_REQUEST.getReasonPhrase(),
+                HttpStatus.BAD_REQUEST.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ResponseEntity<ErrorResponseDto> handleDuplicateEmailException
+            (DuplicateEmailException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.CONFLICT.getReasonPhrase(),
+                HttpStatus.CONFLICT.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleNotFoundException
+            (NotFoundException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.NOT_FOUND.getReasonPhrase(),
+                HttpStatus.NOT_FOUND.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ErrorResponseDto> handlePreconditionFailedException
+            (PreconditionFailedException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.PRECONDITION_FAILED.getReasonPhrase(),
+                HttpStatus.PRECONDITION_FAILED.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(IdUnavailableException.class)
+    public ResponseEntity<ErrorResponseDto> handleIdUnavailableException
+            (IdUnavailableException exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponseDto> handleException
+            (Exception exception, ServerHttpRequest request) {
+        return new ResponseEntity<>(new ErrorResponseDto(LocalDateTime.now(),
+                HttpStatus.INTERNAL_SERVER_ERROR.getReasonPhrase(),
+                HttpStatus.INTERNAL_SERVER_ERROR.value(),
+                List.of(exception.getMessage()),
+                request.getPath().value()),
+                HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
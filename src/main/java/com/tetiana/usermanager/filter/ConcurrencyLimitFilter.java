@@ -0,0 +1,143 @@
+package com.tetiana.usermanager.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tetiana.usermanager.dto.ErrorResponseDto;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of requests handled at once. With a thread per request that is never short of threads,
+ * callers then wait here, in arrival order, instead of in the connection pool. A request that gets no
+ * permit within {@code maxWait} is answered with 503 and {@code Retry-After}.
+ * <p>
+ * An async request, like a streamed response, holds its permit until the async processing completes, errs or
+ * times out, not just until the thread that started it returns. Requests that spend most of their time waiting
+ * without a connection, like change subscriptions, are left out by path.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+    private final ObjectMapper objectMapper;
+    private final List<String> unlimitedPaths;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    /**
+     * @param unlimitedPaths paths within the application that, with everything below them, take no permit
+     */
+    public ConcurrencyLimitFilter(int limit, Duration maxWait, ObjectMapper objectMapper,
+                                  List<String> unlimitedPaths) {
+        this.permits = new Semaphore(limit, true);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.objectMapper = objectMapper;
+        this.unlimitedPaths = unlimitedPaths;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        return unlimitedPaths.stream().anyMatch(unlimited -> path.equals(unlimited)
+                || path.startsWith(unlimited + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!acquire()) {
+            reject(request, response);
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new PermitRelease());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * The permit is taken on the request's first dispatch and released by {@link PermitRelease}, so the
+     * dispatch that finishes an async request must not take another one.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    private boolean acquire() {
+        try {
+            return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponseDto(LocalDateTime.now(),
+                status.getReasonPhrase(),
+                status.value(),
+                List.of("Too many concurrent requests, retry later"),
+                request.getRequestURI()));
+    }
+
+    /**
+     * Releases the permit once, whichever of complete, error and timeout comes first.
+     */
+    private class PermitRelease implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // a restarted async cycle drops its listeners
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.tetiana.usermanager.mapper;
+
+import com.tetiana.usermanager.dto.UserDto;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV layout of users: a header line naming the columns, then one user per line. Fields may be quoted
+ * with {@code "}, doubling quotes inside; line breaks inside fields are not supported.
+ */
+public final class UserCsv {
+    public static final List<String> COLUMNS =
+            List.of("id", "email", "firstName", "lastName", "birthDate", "address", "phoneNumber");
+
+    private UserCsv() {
+    }
+
+    /**
+     * @return for every column of {@link #COLUMNS}, its position in the header, or -1 if absent
+     * @throws IllegalArgumentException if the header names an unknown column
+     */
+    public static int[] parseHeader(String header) {
+        int[] positions = new int[COLUMNS.size()];
+        Arrays.fill(positions, -1);
+        List<String> names = split(header);
+        for (int i = 0; i < names.size(); i++) {
+            int column = COLUMNS.indexOf(names.get(i).trim());
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column " + names.get(i));
+            }
+            positions[column] = i;
+        }
+        return positions;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a field can not be converted
+     */
+    public static UserDto parse(String line, int[] positions) {
+        List<String> fields = split(line);
+        UserDto user = new UserDto();
+        String id = field(fields, positions[0]);
+        user.setId(id == null ? null : Long.valueOf(id));
+        user.setEmail(field(fields, positions[1]));
+        user.setFirstName(field(fields, positions[2]));
+        user.setLastName(field(fields, positions[3]));
+        String birthDate = field(fields, positions[4]);
+        user.setBirthDate(birthDate == null ? null : LocalDate.parse(birthDate));
+        user.setAddress(field(fields, positions[5]));
+        user.setPhoneNumber(field(fields, positions[6]));
+        return user;
+    }
+
+    /**
+     * Writes one line, quoting fields that contain separators, quotes or line breaks. Nulls are written
+     * as empty fields.
+     */
+    public static void write(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields[i];
+            if (field == null) {
+                continue;
+            }
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0
+                    && field.indexOf('\r') < 0) {
+                writer.write(field);
+            } else {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static String field(List<String> fields, int position) {
+        if (position < 0 || position >= fields.size() || fields.get(position).isEmpty()) {
+            return null;
+        }
+        return fields.get(position);
+    }
+
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,42 @@
+package com.tetiana.usermanager.mapper;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.entity.User;
+
+/**
+ * Plain field-by-field conversions between {@link User}, {@link UserView} and {@link UserDto}.
+ */
+public final class UserMapper {
+    private UserMapper() {
+    }
+
+    public static UserDto toDto(User user) {
+        return new UserDto(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate(), user.getAddress(), user.getPhoneNumber());
+    }
+
+    public static UserDto toDto(UserView user) {
+        return new UserDto(user.id(), user.email(), user.firstName(), user.lastName(), user.birthDate(),
+                user.address(), user.phoneNumber());
+    }
+
+    public static User toEntity(UserDto userDto) {
+        User user = new User();
+        user.setId(userDto.getId());
+        copyToEntity(userDto, user);
+        return user;
+    }
+
+    /**
+     * Overwrites every field of the user except the id.
+     */
+    public static void copyToEntity(UserDto userDto, User user) {
+        user.setEmail(userDto.getEmail());
+        user.setFirstName(userDto.getFirstName());
+        user.setLastName(userDto.getLastName());
+        user.setBirthDate(userDto.getBirthDate());
+        user.setAddress(userDto.getAddress());
+        user.setPhoneNumber(userDto.getPhoneNumber());
+    }
+}
@@ -0,0 +1,136 @@
+package com.tetiana.usermanager.mapper;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Protobuf encoding of users after {@code proto/user.proto}, written field by field without generated message
+ * classes. Null fields are left out, and {@code version} is not written, as in JSON.
+ */
+public final class UserProtobuf {
+    private static final int ID = 1;
+    private static final int EMAIL = 2;
+    private static final int FIRST_NAME = 3;
+    private static final int LAST_NAME = 4;
+    private static final int BIRTH_DATE = 5;
+    private static final int ADDRESS = 6;
+    private static final int PHONE_NUMBER = 7;
+    private static final int USERS = 1;
+
+    private UserProtobuf() {
+    }
+
+    /**
+     * Writes the user as a {@code User} message.
+     */
+    public static void write(UserView user, CodedOutputStream output) throws IOException {
+        writeFields(output, user.id(), user.email(), user.firstName(), user.lastName(), user.birthDate(),
+                user.address(), user.phoneNumber());
+    }
+
+    public static void write(UserDto user, CodedOutputStream output) throws IOException {
+        writeFields(output, user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate(), user.getAddress(), user.getPhoneNumber());
+    }
+
+    /**
+     * Writes the user as an element of a {@code UserList} message, which is nothing but its elements one after
+     * another.
+     */
+    public static void writeElement(UserView user, CodedOutputStream output) throws IOException {
+        output.writeTag(USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(size(user.id(), user.email(), user.firstName(), user.lastName(), user.birthDate(),
+                user.address(), user.phoneNumber()));
+        write(user, output);
+    }
+
+    public static void writeElement(UserDto user, CodedOutputStream output) throws IOException {
+        output.writeTag(USERS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(size(user.getId(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getBirthDate(), user.getAddress(), user.getPhoneNumber()));
+        write(user, output);
+    }
+
+    /**
+     * Reads a {@code User} message up to the end of the input. Unknown fields are skipped.
+     */
+    public static UserDto read(CodedInputStream input) throws IOException {
+        UserDto user = new UserDto();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            switch (WireFormat.getTagFieldNumber(tag)) {
+                case ID -> user.setId(input.readInt64());
+                case EMAIL -> user.setEmail(input.readString());
+                case FIRST_NAME -> user.setFirstName(input.readString());
+                case LAST_NAME -> user.setLastName(input.readString());
+                case BIRTH_DATE -> user.setBirthDate(LocalDate.ofEpochDay(input.readSInt32()));
+                case ADDRESS -> user.setAddress(input.readString());
+                case PHONE_NUMBER -> user.setPhoneNumber(input.readString());
+                default -> input.skipField(tag);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Reads a {@code UserList} message up to the end of the input.
+     */
+    public static List<UserDto> readList(CodedInputStream input) throws IOException {
+        List<UserDto> users = new ArrayList<>();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (WireFormat.getTagFieldNumber(tag) != USERS) {
+                input.skipField(tag);
+                continue;
+            }
+            int limit = input.pushLimit(input.readRawVarint32());
+            users.add(read(input));
+            input.popLimit(limit);
+        }
+        return users;
+    }
+
+    private static void writeFields(CodedOutputStream output, Long id, String email, String firstName,
+                                    String lastName, LocalDate birthDate, String address, String phoneNumber)
+            throws IOException {
+        if (id != null) {
+            output.writeInt64(ID, id);
+        }
+        writeString(output, EMAIL, email);
+        writeString(output, FIRST_NAME, firstName);
+        writeString(output, LAST_NAME, lastName);
+        if (birthDate != null) {
+            output.writeSInt32(BIRTH_DATE, (int) birthDate.toEpochDay());
+        }
+        writeString(output, ADDRESS, address);
+        writeString(output, PHONE_NUMBER, phoneNumber);
+    }
+
+    private static void writeString(CodedOutputStream output, int field, String value) throws IOException {
+        if (value != null) {
+            output.writeString(field, value);
+        }
+    }
+
+    private static int size(Long id, String email, String firstName, String lastName, LocalDate birthDate,
+                            String address, String phoneNumber) {
+        return (id == null ? 0 : CodedOutputStream.computeInt64Size(ID, id))
+                + stringSize(EMAIL, email)
+                + stringSize(FIRST_NAME, firstName)
+                + stringSize(LAST_NAME, lastName)
+                + (birthDate == null ? 0
+                        : CodedOutputStream.computeSInt32Size(BIRTH_DATE, (int) birthDate.toEpochDay()))
+                + stringSize(ADDRESS, address)
+                + stringSize(PHONE_NUMBER, phoneNumber);
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+}
@@ -0,0 +1,91 @@
+package com.tetiana.usermanager.mapper;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.service.UserDataFormat;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads {@link UserDto} request bodies and writes users and lists of users as Protobuf, by {@link UserProtobuf}.
+ * A user is a {@code User} message, a list a {@code UserList}.
+ */
+public class UserProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public UserProtobufHttpMessageConverter() {
+        super(MediaType.parseMediaType(UserDataFormat.PROTOBUF.getMediaType()));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return isUser(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == UserDto.class && canRead(mediaType);
+    }
+
+    /**
+     * Lists are written when their elements are declared as users, or left open like {@code List<?>}.
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (isUser(clazz)) {
+            return true;
+        }
+        if (!List.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> element = type == null ? null : ResolvableType.forType(type).asCollection().resolveGeneric();
+        return element == null || element == Object.class || isUser(element);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(UserDto.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return UserProtobuf.read(CodedInputStream.newInstance(inputMessage.getBody()));
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody());
+        if (value instanceof List<?> users) {
+            for (Object user : users) {
+                if (user instanceof UserView view) {
+                    UserProtobuf.writeElement(view, output);
+                } else if (user instanceof UserDto dto) {
+                    UserProtobuf.writeElement(dto, output);
+                } else {
+                    throw new HttpMessageNotWritableException("Can not write " + user.getClass() + " as a user");
+                }
+            }
+        } else if (value instanceof UserView view) {
+            UserProtobuf.write(view, output);
+        } else {
+            UserProtobuf.write((UserDto) value, output);
+        }
+        output.flush();
+    }
+
+    private static boolean isUser(Class<?> clazz) {
+        return clazz == UserView.class || clazz == UserDto.class;
+    }
+}
@@ -0,0 +1,109 @@
+package com.tetiana.usermanager.mapper;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.protobuf.CodedOutputStream;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.service.UserDataFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes users one at a time in a {@link UserDataFormat}, for responses streamed while rows are read. Users are
+ * written as {@link UserViewSerializer} and {@link UserProtobuf} write them, and as {@link UserCsv} columns.
+ */
+public abstract class UserSequenceWriter {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final JsonFactory CBOR_FACTORY = new CBORFactory();
+    private static final JsonFactory SMILE_FACTORY = new SmileFactory();
+
+    public static UserSequenceWriter of(UserDataFormat format, OutputStream output) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(output);
+            case NDJSON -> new Jackson(JSON_FACTORY.createGenerator(output), true);
+            case CBOR -> new Jackson(CBOR_FACTORY.createGenerator(output), false);
+            case SMILE -> new Jackson(SMILE_FACTORY.createGenerator(output), false);
+            case PROTOBUF -> new Protobuf(CodedOutputStream.newInstance(output));
+        };
+    }
+
+    public abstract void write(UserView user) throws IOException;
+
+    /**
+     * Writes out what is buffered, without closing the output.
+     */
+    public abstract void flush() throws IOException;
+
+    private static final class Jackson extends UserSequenceWriter {
+        private final JsonGenerator generator;
+        private final boolean lines;
+
+        private Jackson(JsonGenerator generator, boolean lines) {
+            this.generator = generator;
+            this.lines = lines;
+            if (lines) {
+                // one value per line instead of space separated; binary values have no separators
+                generator.setRootValueSeparator(null);
+            }
+        }
+
+        @Override
+        public void write(UserView user) throws IOException {
+            UserViewSerializer.write(user, generator);
+            if (lines) {
+                generator.writeRaw('\n');
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class Protobuf extends UserSequenceWriter {
+        private final CodedOutputStream output;
+
+        private Protobuf(CodedOutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(UserView user) throws IOException {
+            UserProtobuf.writeElement(user, output);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+    }
+
+    private static final class Csv extends UserSequenceWriter {
+        private final Writer writer;
+
+        private Csv(OutputStream output) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            UserCsv.write(writer, UserCsv.COLUMNS.toArray(String[]::new));
+        }
+
+        @Override
+        public void write(UserView user) throws IOException {
+            UserCsv.write(writer, user.id() == null ? null : user.id().toString(), user.email(), user.firstName(),
+                    user.lastName(), user.birthDate() == null ? null : user.birthDate().toString(), user.address(),
+                    user.phoneNumber());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.tetiana.usermanager.mapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Writes a {@link UserView} as the JSON of a {@link UserDto} without links: the same fields in the same order,
+ * without {@code version}, which travels as the entity tag. Field names are encoded once, and birth dates come
+ * encoded from {@link #birthDate(LocalDate)}, so writing a user allocates little beyond its string values.
+ */
+public class UserViewSerializer extends StdSerializer<UserView> {
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString FIRST_NAME = new SerializedString("firstName");
+    private static final SerializableString LAST_NAME = new SerializedString("lastName");
+    private static final SerializableString BIRTH_DATE = new SerializedString("birthDate");
+    private static final SerializableString ADDRESS = new SerializedString("address");
+    private static final SerializableString PHONE_NUMBER = new SerializedString("phoneNumber");
+
+    private static final long FIRST_CACHED_DAY = LocalDate.of(1900, 1, 1).toEpochDay();
+    // filled as dates are written; a slot is set at most a few times over with equal strings
+    private static final SerializableString[] DATES =
+            new SerializableString[(int) (LocalDate.of(2100, 1, 1).toEpochDay() - FIRST_CACHED_DAY)];
+
+    public UserViewSerializer() {
+        super(UserView.class);
+    }
+
+    @Override
+    public void serialize(UserView user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        write(user, generator);
+    }
+
+    public static void write(UserView user, JsonGenerator generator) throws IOException {
+        generator.writeStartObject(user);
+        generator.writeFieldName(ID);
+        if (user.id() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(user.id());
+        }
+        generator.writeFieldName(EMAIL);
+        generator.writeString(user.email());
+        generator.writeFieldName(FIRST_NAME);
+        generator.writeString(user.firstName());
+        generator.writeFieldName(LAST_NAME);
+        generator.writeString(user.lastName());
+        generator.writeFieldName(BIRTH_DATE);
+        if (user.birthDate() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(birthDate(user.birthDate()));
+        }
+        generator.writeFieldName(ADDRESS);
+        generator.writeString(user.address());
+        generator.writeFieldName(PHONE_NUMBER);
+        generator.writeString(user.phoneNumber());
+        generator.writeEndObject();
+    }
+
+    /**
+     * @return the ISO-8601 form of the date, shared between calls for dates of the 20th and 21st centuries
+     */
+    static SerializableString birthDate(LocalDate date) {
+        long day = date.toEpochDay() - FIRST_CACHED_DAY;
+        if (day < 0 || day >= DATES.length) {
+            return new SerializedString(date.toString());
+        }
+        SerializableString encoded = DATES[(int) day];
+        if (encoded == null) {
+            encoded = new SerializedString(date.toString());
+            DATES[(int) day] = encoded;
+        }
+        return encoded;
+    }
+}
@@ -1,17 +1,87 @@
 package com.tetiana.usermanager.repository;
 
+import com.tetiana.usermanager.dto.UserView;
 import com.tetiana.usermanager.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserWriteRepository {
+    String STREAM_FETCH_SIZE = "500";
+    String BIRTH_DATE_RANGE_REGION = "users-by-birth-date";
+
     User getById(Long id);
 
     void deleteById(Long id);
 
-    List<User> findByBirthDateBetween(LocalDate startDate, LocalDate endDate);
+    // read-only so that cache misses can be served by a replica
+    @Transactional(readOnly = true)
+    Optional<UserView> findViewById(Long id);
+
+    @Query("select new com.tetiana.usermanager.dto.UserView("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) "
+            + "from User u where u.email = :email")
+    Optional<UserView> findViewByEmail(@Param("email") String email);
+
+    @Query("select new com.tetiana.usermanager.dto.UserView("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) "
+            + "from User u where u.phoneNumber = :phoneNumber order by u.id")
+    List<UserView> findViewsByPhoneNumber(@Param("phoneNumber") String phoneNumber);
+
+    @Query("select new com.tetiana.usermanager.dto.UserView("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) "
+            + "from User u where u.id in :ids")
+    List<UserView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    List<UserView> findViewsByBirthDateBetween(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * {@link #findViewsByBirthDateBetween} through the query cache. Results are dropped whenever a user
+     * is written, so this pays off for windows that are read far more often than users
+     * change.
+     */
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = BIRTH_DATE_RANGE_REGION)})
+    @Query("select new com.tetiana.usermanager.dto.UserView("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) "
+            + "from User u where u.birthDate between :startDate and :endDate")
+    List<UserView> findCachedViewsByBirthDateBetween(@Param("startDate") LocalDate startDate,
+                                                     @Param("endDate") LocalDate endDate);
+
+    List<UserView> findViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(LocalDate startDate, LocalDate endDate,
+                                                                       Pageable pageable);
+
+    @Query("select new com.tetiana.usermanager.dto.UserView("
+            + "u.id, u.email, u.firstName, u.lastName, u.birthDate, u.address, u.phoneNumber, u.version) "
+            + "from User u where u.birthDate between :startDate and :endDate "
+            + "and (u.birthDate > :afterDate or (u.birthDate = :afterDate and u.id > :afterId)) "
+            + "order by u.birthDate, u.id")
+    List<UserView> findViewsByBirthDateBetweenAfter(@Param("startDate") LocalDate startDate,
+                                                    @Param("endDate") LocalDate endDate,
+                                                    @Param("afterDate") LocalDate afterDate,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<UserView> streamViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(LocalDate startDate,
+                                                                           LocalDate endDate);
 }
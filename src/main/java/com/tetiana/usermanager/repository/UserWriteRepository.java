@@ -0,0 +1,26 @@
+package com.tetiana.usermanager.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Single-statement writes of one user that leave the other users in the second-level cache. Hibernate answers
+ * a JPQL bulk update or delete by dropping the whole entity region, so these run as native statements and
+ * evict only the user they wrote, along with the cached queries over users.
+ */
+public interface UserWriteRepository {
+    /**
+     * Overwrites the user with one {@code UPDATE}, without loading it first. A non-null version makes the
+     * update conditional on it.
+     *
+     * @return 1, or 0 when the user is missing or at another version
+     */
+    int updateByIdAtVersion(Long id, String email, String firstName, String lastName, LocalDate birthDate,
+                            String address, String phoneNumber, Long version);
+
+    /**
+     * Deletes the user with one {@code DELETE}, like {@link #updateByIdAtVersion}.
+     *
+     * @return 1, or 0 when the user is missing or at another version
+     */
+    int deleteByIdAtVersion(Long id, Long version);
+}
@@ -0,0 +1,73 @@
+package com.tetiana.usermanager.repository;
+
+import com.tetiana.usermanager.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Cache;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+class UserWriteRepositoryImpl implements UserWriteRepository {
+    private static final String UPDATE = "UPDATE user SET email = :email, first_name = :firstName, "
+            + "last_name = :lastName, birth_date = :birthDate, address = :address, phone_number = :phoneNumber, "
+            + "version = version + 1 WHERE id = :id";
+    private static final String DELETE = "DELETE FROM user WHERE id = :id";
+    private static final String AT_VERSION = " AND version = :version";
+    /**
+     * A query space no entity is mapped to. Synchronizing on it keeps Hibernate from clearing the cache
+     * regions of every entity, which it does for a native statement that names no spaces.
+     */
+    private static final String NO_ENTITY = "";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateByIdAtVersion(Long id, String email, String firstName, String lastName, LocalDate birthDate,
+                                   String address, String phoneNumber, Long version) {
+        Query query = entityManager.createNativeQuery(version == null ? UPDATE : UPDATE + AT_VERSION)
+                .setParameter("email", email)
+                .setParameter("firstName", firstName)
+                .setParameter("lastName", lastName)
+                .setParameter("birthDate", birthDate)
+                .setParameter("address", address)
+                .setParameter("phoneNumber", phoneNumber);
+        return execute(query, id, version);
+    }
+
+    @Override
+    public int deleteByIdAtVersion(Long id, Long version) {
+        return execute(entityManager.createNativeQuery(version == null ? DELETE : DELETE + AT_VERSION), id, version);
+    }
+
+    private int execute(Query query, Long id, Long version) {
+        query.setParameter("id", id);
+        if (version != null) {
+            query.setParameter("version", version);
+        }
+        query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(NO_ENTITY);
+        int written = query.executeUpdate();
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // a reader may cache the old row or results again until the transaction ends
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(id);
+                }
+            });
+        }
+        return written;
+    }
+
+    private void evict(Long id) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        cache.evict(User.class, id);
+        // results of queries over users are held by the query regions only
+        cache.evictQueryRegions();
+    }
+}
@@ -0,0 +1,80 @@
+package com.tetiana.usermanager.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes for reads that would go to a replica. A user written through this instance is read from
+ * the primary until any replica still taking reads must have caught up with the write: for the maximum lag
+ * allowed plus the time it takes to notice a replica falling behind. Without replicas this does nothing.
+ */
+@Component
+@PropertySource("classpath:custom.properties")
+public class ReadRouting {
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private final boolean replicated;
+    private final Cache<Long, Boolean> recentWrites;
+
+    public ReadRouting(@Value("${replica_urls}") String replicaUrls,
+                       @Value("${replica_max_lag}") Duration maxLag,
+                       @Value("${replica_check_interval}") Duration checkInterval) {
+        this.replicated = !replicaUrls.isBlank();
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(maxLag.plus(checkInterval))
+                .build();
+    }
+
+    public void written(Long id) {
+        writtenAll(List.of(id));
+    }
+
+    /**
+     * Marks the users as written now and again once the transaction completes, so that the window starts
+     * from the commit.
+     */
+    public void writtenAll(Collection<Long> ids) {
+        if (!replicated) {
+            return;
+        }
+        List<Long> written = List.copyOf(ids);
+        written.forEach(id -> recentWrites.put(id, Boolean.TRUE));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    written.forEach(id -> recentWrites.put(id, Boolean.TRUE));
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs the read of the user on the primary if the user was written recently, on a replica otherwise.
+     */
+    public <T> T readLatest(Long id, Supplier<T> read) {
+        if (!replicated || recentWrites.getIfPresent(id) == null || PRIMARY.get() != null) {
+            return read.get();
+        }
+        PRIMARY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            PRIMARY.remove();
+        }
+    }
+
+    static boolean primaryRequired() {
+        return PRIMARY.get() != null;
+    }
+}
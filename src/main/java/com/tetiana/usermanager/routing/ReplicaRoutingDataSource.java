@@ -0,0 +1,176 @@
+package com.tetiana.usermanager.routing;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica, unless {@link ReadRouting} asks for the primary, and everything
+ * else to the primary. Of the replicas in sync, the one with the fewest connections in use is picked, ties
+ * taking turns. The physical connection has to be taken once the transaction has started, which is what
+ * wrapping this in a {@code LazyConnectionDataSourceProxy} does.
+ * <p>
+ * Lag is measured with a heartbeat. Every check first sets the primary's {@code replica_heartbeat} row to the
+ * current time, and a replica lags by the age of the time it reads back. A replica still showing the previous
+ * beat only misses the newest one, and lags by its age instead, so the check interval is not counted as lag.
+ * A replica lagging more than the maximum, or failing, takes no reads until it catches up. With none in sync
+ * reads go to the primary. Instances share the row, so their clocks need to agree to well within the maximum
+ * lag.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+        implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+    private static final String PRIMARY = "primary";
+    private static final String BEAT = "UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1";
+    private static final String SELECT_BEAT = "SELECT beat_at FROM replica_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final AtomicInteger turn = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private Instant previousBeat;
+
+    /**
+     * @param replicaUrls JDBC URLs of the replicas, which get pools configured like the primary's
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primaryDataSource, List<String> replicaUrls, Duration maxLag,
+                                    Duration checkInterval) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primaryDataSource);
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls.get(i));
+            config.setPoolName("replica-" + i);
+            config.setReadOnly(true);
+            Replica replica = new Replica(config.getPoolName(), new HikariDataSource(config));
+            replicas.add(replica);
+            targets.put(replica.name, replica.dataSource);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primaryDataSource);
+        this.checker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Checks the replicas once the schema is migrated, reading from the primary until then, and every check
+     * interval after that.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        checkReplicas();
+        checker.scheduleWithFixedDelay(this::checkReplicas, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        checker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * Beats on the primary and works out which replicas are in sync, as done every check interval.
+     */
+    public synchronized void checkReplicas() {
+        // the column keeps milliseconds, and a replica's beat is compared with the ones written here
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        Instant written = null;
+        try {
+            primary.update(BEAT, Timestamp.from(now));
+            written = now;
+        } catch (DataAccessException e) {
+            log.warn("Could not beat on the primary", e);
+        }
+        for (Replica replica : replicas) {
+            boolean inSync;
+            try {
+                Instant seen = new JdbcTemplate(replica.dataSource).queryForObject(SELECT_BEAT, Timestamp.class)
+                        .toInstant();
+                Instant behindSince = written != null && previousBeat != null && !seen.isBefore(previousBeat)
+                        && seen.isBefore(written) ? written : seen;
+                Duration lag = Duration.between(behindSince, Instant.now());
+                inSync = lag.compareTo(maxLag) <= 0;
+                if (!inSync && replica.inSync) {
+                    log.warn("Replica {} is {} ms behind, reading from the others", replica.name, lag.toMillis());
+                }
+            } catch (DataAccessException e) {
+                inSync = false;
+                if (replica.inSync) {
+                    log.warn("Replica {} failed, reading from the others", replica.name, e);
+                }
+            }
+            if (inSync && !replica.inSync) {
+                log.info("Replica {} is in sync", replica.name);
+            }
+            replica.inSync = inSync;
+        }
+        if (written != null) {
+            previousBeat = written;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadRouting.primaryRequired()) {
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int first = Math.floorMod(turn.getAndIncrement(), size);
+        Replica least = null;
+        int leastActive = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((first + i) % size);
+            if (replica.inSync) {
+                HikariPoolMXBean pool = replica.dataSource.getHikariPoolMXBean();
+                int active = pool == null ? 0 : pool.getActiveConnections();
+                if (active < leastActive) {
+                    least = replica;
+                    leastActive = active;
+                }
+            }
+        }
+        return least == null ? PRIMARY : least.name;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private volatile boolean inSync;
+
+        private Replica(String name, HikariDataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.tetiana.usermanager.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index from words to user ids. Text is lower-cased and split into words at every
+ * character that is not a letter or digit, so {@code "Jane.Doe@Mail.com"} is indexed as {@code jane},
+ * {@code doe}, {@code mail} and {@code com}.
+ * <p>
+ * Words are kept sorted, so the words starting with a prefix are one range of the dictionary. Every word
+ * is also listed under its trigrams, which narrows a search for words containing a query word down to the
+ * words sharing all its trigrams. Postings are Roaring bitmaps, so ids have to fit in an {@code int}.
+ * <p>
+ * A query matches the users for whom each query word matches one of their words. Users are ranked by their
+ * weakest match: every query word equal to a word first, then every query word a prefix of a word, then
+ * query words of three or more characters anywhere inside a word. Ties are ordered by id. Each prefix or
+ * infix word expands to at most {@code maxExpansions} indexed words, which bounds the cost of short words.
+ * <p>
+ * Reads share a read lock and run concurrently; changes take the write lock.
+ */
+public final class InvertedIndex {
+    private static final int FORMAT = 1;
+    private static final int GRAM = 3;
+
+    private final int maxExpansions;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Integer> ordinals = new TreeMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final List<RoaringBitmap> postings = new ArrayList<>();
+    private final RoaringBitmap freeOrdinals = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> trigrams = new HashMap<>();
+    private final Map<Integer, int[]> documents = new HashMap<>();
+
+    public InvertedIndex(int maxExpansions) {
+        this.maxExpansions = maxExpansions;
+    }
+
+    /**
+     * Indexes the user, replacing the words it was indexed under before.
+     */
+    public void put(long id, String... fields) {
+        int document = Math.toIntExact(id);
+        Set<String> added = tokenize(fields);
+        lock.writeLock().lock();
+        try {
+            int[] previous = documents.getOrDefault(document, new int[0]);
+            int[] linked = new int[added.size()];
+            int count = 0;
+            for (int ordinal : previous) {
+                if (added.remove(words.get(ordinal))) {
+                    linked[count++] = ordinal;
+                } else {
+                    unlink(document, ordinal);
+                }
+            }
+            for (String word : added) {
+                linked[count++] = link(document, word);
+            }
+            documents.put(document, linked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        int document = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            int[] previous = documents.remove(document);
+            if (previous != null) {
+                for (int ordinal : previous) {
+                    unlink(document, ordinal);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the best matching users, best first
+     */
+    public List<Long> search(String query, int limit) {
+        Set<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        String[] terms = queryWords.toArray(String[]::new);
+        RoaringBitmap[] matches = new RoaringBitmap[terms.length];
+        List<Long> ids = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < terms.length; i++) {
+                Integer ordinal = ordinals.get(terms[i]);
+                matches[i] = ordinal == null ? new RoaringBitmap() : postings.get(ordinal);
+            }
+            RoaringBitmap found = intersect(matches);
+            collect(found, null, ids, limit);
+            for (int i = 0; i < terms.length && ids.size() < limit; i++) {
+                matches[i] = RoaringBitmap.or(matches[i], prefixed(terms[i]));
+            }
+            if (ids.size() < limit) {
+                RoaringBitmap prefixed = intersect(matches);
+                collect(prefixed, found, ids, limit);
+                found = prefixed;
+            }
+            for (int i = 0; i < terms.length && ids.size() < limit; i++) {
+                if (terms[i].length() >= GRAM) {
+                    matches[i] = RoaringBitmap.or(matches[i], containing(terms[i]));
+                }
+            }
+            if (ids.size() < limit) {
+                collect(intersect(matches), found, ids, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the dictionary and each user's words; postings and trigrams are rebuilt from them on reading.
+     */
+    public void writeTo(DataOutput output) throws IOException {
+        lock.readLock().lock();
+        try {
+            output.writeInt(FORMAT);
+            output.writeInt(ordinals.size());
+            for (Map.Entry<String, Integer> entry : ordinals.entrySet()) {
+                output.writeInt(entry.getValue());
+                output.writeUTF(entry.getKey());
+            }
+            output.writeInt(documents.size());
+            for (Map.Entry<Integer, int[]> document : documents.entrySet()) {
+                output.writeInt(document.getKey());
+                output.writeInt(document.getValue().length);
+                for (int ordinal : document.getValue()) {
+                    output.writeInt(ordinal);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #writeTo}.
+     */
+    public static InvertedIndex readFrom(DataInput input, int maxExpansions) throws IOException {
+        if (input.readInt() != FORMAT) {
+            throw new IOException("Unknown search index format");
+        }
+        InvertedIndex index = new InvertedIndex(maxExpansions);
+        for (int i = input.readInt(); i > 0; i--) {
+            int ordinal = input.readInt();
+            String word = input.readUTF();
+            while (index.words.size() <= ordinal) {
+                index.freeOrdinals.add(index.words.size());
+                index.words.add(null);
+                index.postings.add(null);
+            }
+            index.freeOrdinals.remove(ordinal);
+            index.define(ordinal, word);
+        }
+        for (int i = input.readInt(); i > 0; i--) {
+            int document = input.readInt();
+            int[] linked = new int[input.readInt()];
+            for (int j = 0; j < linked.length; j++) {
+                linked[j] = input.readInt();
+                index.postings.get(linked[j]).add(document);
+            }
+            index.documents.put(document, linked);
+        }
+        return index;
+    }
+
+    static Set<String> tokenize(String... texts) {
+        Set<String> tokens = new HashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String lowerCase = text.toLowerCase(Locale.ROOT);
+            int start = -1;
+            for (int i = 0; i <= lowerCase.length(); i++) {
+                boolean wordChar = i < lowerCase.length() && Character.isLetterOrDigit(lowerCase.charAt(i));
+                if (wordChar && start < 0) {
+                    start = i;
+                } else if (!wordChar && start >= 0) {
+                    tokens.add(lowerCase.substring(start, i));
+                    start = -1;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private int link(int document, String word) {
+        Integer ordinal = ordinals.get(word);
+        if (ordinal == null) {
+            if (freeOrdinals.isEmpty()) {
+                ordinal = words.size();
+                words.add(null);
+                postings.add(null);
+            } else {
+                ordinal = freeOrdinals.first();
+                freeOrdinals.remove(ordinal);
+            }
+            define(ordinal, word);
+        }
+        postings.get(ordinal).add(document);
+        return ordinal;
+    }
+
+    private void define(int ordinal, String word) {
+        ordinals.put(word, ordinal);
+        words.set(ordinal, word);
+        postings.set(ordinal, new RoaringBitmap());
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            trigrams.computeIfAbsent(word.substring(i, i + GRAM), gram -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    /**
+     * Drops the user from the word's postings, and the word itself once no user has it.
+     */
+    private void unlink(int document, int ordinal) {
+        RoaringBitmap posting = postings.get(ordinal);
+        posting.remove(document);
+        if (!posting.isEmpty()) {
+            return;
+        }
+        String word = words.get(ordinal);
+        ordinals.remove(word);
+        words.set(ordinal, null);
+        postings.set(ordinal, null);
+        for (int i = 0; i + GRAM <= word.length(); i++) {
+            String gram = word.substring(i, i + GRAM);
+            RoaringBitmap withGram = trigrams.get(gram);
+            withGram.remove(ordinal);
+            if (withGram.isEmpty()) {
+                trigrams.remove(gram);
+            }
+        }
+        freeOrdinals.add(ordinal);
+    }
+
+    /**
+     * Users with a word starting with, but not equal to, the given one.
+     */
+    private RoaringBitmap prefixed(String prefix) {
+        Iterator<Integer> range = ordinals.subMap(prefix, false, prefix + Character.MAX_VALUE, false)
+                .values()
+                .iterator();
+        List<RoaringBitmap> expanded = new ArrayList<>();
+        while (range.hasNext() && expanded.size() < maxExpansions) {
+            expanded.add(postings.get(range.next()));
+        }
+        return FastAggregation.or(expanded.iterator());
+    }
+
+    /**
+     * Users with a word containing the given one other than at its start.
+     */
+    private RoaringBitmap containing(String infix) {
+        RoaringBitmap[] grams = new RoaringBitmap[infix.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = trigrams.get(infix.substring(i, i + GRAM));
+            if (grams[i] == null) {
+                return new RoaringBitmap();
+            }
+        }
+        List<RoaringBitmap> expanded = new ArrayList<>();
+        IntIterator candidates = intersect(grams).getIntIterator();
+        while (candidates.hasNext() && expanded.size() < maxExpansions) {
+            int ordinal = candidates.next();
+            String word = words.get(ordinal);
+            if (!word.startsWith(infix) && word.contains(infix)) {
+                expanded.add(postings.get(ordinal));
+            }
+        }
+        return FastAggregation.or(expanded.iterator());
+    }
+
+    /**
+     * Intersects smallest first, so the working set only shrinks. The result may be one of the arguments
+     * and must not be modified.
+     */
+    private static RoaringBitmap intersect(RoaringBitmap[] bitmaps) {
+        RoaringBitmap[] sorted = bitmaps.clone();
+        Arrays.sort(sorted, Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap result = sorted[0];
+        for (int i = 1; i < sorted.length && !result.isEmpty(); i++) {
+            result = RoaringBitmap.and(result, sorted[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Appends ids of the bitmap, skipping those an earlier tier has already added, until the limit is reached.
+     */
+    private static void collect(RoaringBitmap tier, RoaringBitmap added, List<Long> ids, int limit) {
+        IntIterator iterator = tier.getIntIterator();
+        while (iterator.hasNext() && ids.size() < limit) {
+            int id = iterator.next();
+            if (added == null || !added.contains(id)) {
+                ids.add((long) id);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.tetiana.usermanager.search;
+
+import com.tetiana.usermanager.cache.DerivedState;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.sharding.ShardedUserStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps an {@link InvertedIndex} of the users' names, email and address in step with the database, as a
+ * {@link DerivedState}. The index is loaded in the background once the application is ready and can be
+ * rebuilt from the database at any time. Only writes made through this instance are seen between rebuilds.
+ * <p>
+ * With {@code search_index_file} set, the index is saved there on shutdown and loaded from it on startup
+ * instead of reading the table, provided the user count, highest id and sum of versions still match.
+ * <p>
+ * In the {@code sharded} profile the users are read from every shard, and so is the fingerprint of a saved index.
+ */
+@Slf4j
+@Component
+@PropertySource("classpath:custom.properties")
+public class UserSearchIndex {
+    private static final String SELECT_ALL = "SELECT id, first_name, last_name, email, address FROM user";
+    private static final String SELECT_FINGERPRINT = "SELECT COUNT(*), COALESCE(MAX(id), 0), "
+            + "COALESCE(SUM(version), 0) FROM user";
+    private static final String SELECT_VERSIONS = "SELECT id, version FROM user";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxExpansions;
+    private final Path file;
+    private final DerivedState<InvertedIndex> index;
+    private ShardedUserStore shardedUserStore;
+
+    public UserSearchIndex(DataSource dataSource,
+                           @Value("${export_fetch_size}") int fetchSize,
+                           @Value("${search_max_expansions}") int maxExpansions,
+                           @Value("${search_index_file}") String file) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.maxExpansions = maxExpansions;
+        this.file = file.isBlank() ? null : Path.of(file);
+        this.index = new DerivedState<>("user search index", new InvertedIndex(maxExpansions));
+    }
+
+    @Autowired(required = false)
+    public void setShardedUserStore(ShardedUserStore shardedUserStore) {
+        this.shardedUserStore = shardedUserStore;
+    }
+
+    public List<Long> search(String query, int limit) {
+        return index.get().search(query, limit);
+    }
+
+    public void put(User user) {
+        put(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail(), user.getAddress());
+    }
+
+    public void put(Long id, String firstName, String lastName, String email, String address) {
+        index.afterCommit(target -> target.put(id, firstName, lastName, email, address));
+    }
+
+    public void putAll(Collection<User> users) {
+        List<Consumer<InvertedIndex>> puts = new ArrayList<>(users.size());
+        for (User user : users) {
+            Long id = user.getId();
+            String firstName = user.getFirstName();
+            String lastName = user.getLastName();
+            String email = user.getEmail();
+            String address = user.getAddress();
+            puts.add(target -> target.put(id, firstName, lastName, email, address));
+        }
+        index.afterCommit(target -> puts.forEach(put -> put.accept(target)));
+    }
+
+    public void remove(Long id) {
+        index.afterCommit(target -> target.remove(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        index.afterCommit(target -> removed.forEach(target::remove));
+    }
+
+    /**
+     * Queues a rebuild from the database, unless one is already waiting to start.
+     */
+    public void rebuild() {
+        index.load(this::read);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        index.load(() -> {
+            InvertedIndex saved = readFile();
+            return saved != null ? saved : read();
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        index.close();
+        if (file == null || !index.isLoaded()) {
+            return;
+        }
+        try {
+            Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                    ".tmp");
+            long[] fingerprint = fingerprint();
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)))) {
+                for (long value : fingerprint) {
+                    output.writeLong(value);
+                }
+                index.get().writeTo(output);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not save the search index to {}", file, e);
+        }
+    }
+
+    private InvertedIndex read() {
+        InvertedIndex loading = new InvertedIndex(maxExpansions);
+        query(SELECT_ALL, resultSet -> {
+            loading.put(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                    resultSet.getString(4), resultSet.getString(5));
+        });
+        return loading;
+    }
+
+    /**
+     * @return the saved index, or null when there is none or the users have changed since it was saved
+     */
+    private InvertedIndex readFile() {
+        if (file == null || !Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (long value : fingerprint()) {
+                if (input.readLong() != value) {
+                    log.info("Users have changed since {} was saved", file);
+                    return null;
+                }
+            }
+            return InvertedIndex.readFrom(input, maxExpansions);
+        } catch (IOException e) {
+            log.warn("Could not read the search index from {}", file, e);
+            return null;
+        }
+    }
+
+    private long[] fingerprint() {
+        if (shardedUserStore == null) {
+            return jdbcTemplate.queryForObject(SELECT_FINGERPRINT, (resultSet, row) ->
+                    new long[]{resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)});
+        }
+        long[] fingerprint = new long[3];
+        shardedUserStore.queryAll(SELECT_VERSIONS, resultSet -> {
+            fingerprint[0]++;
+            fingerprint[1] = Math.max(fingerprint[1], resultSet.getLong(1));
+            fingerprint[2] += resultSet.getLong(2);
+        });
+        return fingerprint;
+    }
+
+    private void query(String sql, RowCallbackHandler handler) {
+        if (shardedUserStore != null) {
+            shardedUserStore.queryAll(sql, handler);
+        } else {
+            jdbcTemplate.query(sql, handler);
+        }
+    }
+}
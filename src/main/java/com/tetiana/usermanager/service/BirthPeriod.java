@@ -0,0 +1,27 @@
+package com.tetiana.usermanager.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+/**
+ * Periods births can be counted by.
+ */
+public enum BirthPeriod {
+    YEAR {
+        @Override
+        public String of(LocalDate date) {
+            return Integer.toString(date.getYear());
+        }
+    },
+    MONTH {
+        @Override
+        public String of(LocalDate date) {
+            return YearMonth.from(date).toString();
+        }
+    };
+
+    /**
+     * @return the period the date falls in, in ISO format
+     */
+    public abstract String of(LocalDate date);
+}
@@ -0,0 +1,25 @@
+package com.tetiana.usermanager.service;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Service
+public interface ReactiveUserService {
+    Mono<UserView> get(Long id);
+
+    Flux<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end);
+
+    Mono<Void> create(UserDto user);
+
+    Mono<Void> delete(Long id, Long expectedVersion);
+
+    Mono<Void> update(Long id, UserDto user, Long expectedVersion);
+
+    Mono<Void> partialUpdate(Long id, Map<String, Object> fieldsMap, Long expectedVersion);
+}
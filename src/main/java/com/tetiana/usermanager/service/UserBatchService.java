@@ -0,0 +1,16 @@
+package com.tetiana.usermanager.service;
+
+import com.tetiana.usermanager.dto.BatchResultDto;
+import com.tetiana.usermanager.dto.UserDto;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public interface UserBatchService {
+    BatchResultDto createAll(List<UserDto> users);
+
+    BatchResultDto updateAll(List<UserDto> users);
+
+    BatchResultDto deleteAll(List<Long> ids);
+}
@@ -0,0 +1,22 @@
+package com.tetiana.usermanager.service;
+
+import com.tetiana.usermanager.dto.UserChangePageDto;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The stream of committed user writes, for consumers that would otherwise poll users for changes.
+ */
+@Service
+public interface UserChangeService {
+    /**
+     * Changes after position {@code since}, oldest first. When there are none yet, the page completes as soon
+     * as one is published or, empty, after {@code wait} (capped at {@code change_wait_max}).
+     *
+     * @throws com.tetiana.usermanager.exception.ChangesExpiredException when changes after {@code since} have
+     *                                                                   already been deleted
+     */
+    CompletableFuture<UserChangePageDto> getChanges(long since, int limit, Duration wait);
+}
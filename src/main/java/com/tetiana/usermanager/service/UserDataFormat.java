@@ -0,0 +1,65 @@
+package com.tetiana.usermanager.service;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * Formats users are streamed and exported in. CSV and NDJSON are line oriented and can be imported too;
+ * CBOR and Smile are sequences of binary JSON values, and Protobuf a {@code UserList} after
+ * {@code proto/user.proto}.
+ */
+public enum UserDataFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson"),
+    CBOR("application/cbor", "cbor"),
+    SMILE("application/x-jackson-smile", "sml"),
+    PROTOBUF("application/x-protobuf", "pb");
+
+    private final String mediaType;
+    private final String extension;
+
+    UserDataFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks the format an {@code Accept} header asks for, by specificity and quality.
+     *
+     * @return the first of {@code offered} when the header is missing or invalid, or allows none of them
+     */
+    public static UserDataFormat negotiate(String accept, List<UserDataFormat> offered) {
+        if (accept == null || accept.isBlank()) {
+            return offered.get(0);
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return offered.get(0);
+        }
+        MimeTypeUtils.sortBySpecificity(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (UserDataFormat format : offered) {
+                if (mediaType.includes(MediaType.parseMediaType(format.mediaType))) {
+                    return format;
+                }
+            }
+        }
+        return offered.get(0);
+    }
+}
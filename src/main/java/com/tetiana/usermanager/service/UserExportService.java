@@ -0,0 +1,22 @@
+package com.tetiana.usermanager.service;
+
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+@Service
+public interface UserExportService {
+    /**
+     * Checks the arguments and prepares an export; rows are only read once the result is written.
+     *
+     * @param start first birth date to export, or null together with end for all users
+     */
+    UserExport export(UserDataFormat format, LocalDate start, LocalDate end);
+
+    @FunctionalInterface
+    interface UserExport {
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
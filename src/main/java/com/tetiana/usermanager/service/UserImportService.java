@@ -0,0 +1,19 @@
+package com.tetiana.usermanager.service;
+
+import com.tetiana.usermanager.dto.ImportJobDto;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+@Service
+public interface UserImportService {
+    ImportJobDto importUsers(InputStream input, UserDataFormat format);
+
+    ImportJobDto getJob(String id);
+
+    List<ImportJobDto> getJobs();
+
+    Path getRejects(String id);
+}
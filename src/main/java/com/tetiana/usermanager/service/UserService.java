@@ -1,23 +1,68 @@
 package com.tetiana.usermanager.service;
 
 import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
 public interface UserService {
     UserDto get(Long id);
 
-    List<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end);
+    UserView getView(Long id);
 
+    List<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end, boolean compact);
+
+    /**
+     * The users of {@link #getUsersByBirthDateRange} without links, as read.
+     */
+    List<UserView> getViewsByBirthDateRange(LocalDate start, LocalDate end);
+
+    /**
+     * @return the user with this email in any letter case, or an empty list
+     */
+    List<UserDto> getUsersByEmail(String email, boolean compact);
+
+    List<UserDto> getUsersByPhoneNumber(String phoneNumber, boolean compact);
+
+    /**
+     * Finds users whose names, email or address contain words starting with each word of the query.
+     *
+     * @return at most {@code limit} users, best matches first
+     */
+    List<UserDto> searchUsers(String query, int limit, boolean compact);
+
+    /**
+     * Starts rebuilding the search index from the database in the background.
+     */
+    void rebuildSearchIndex();
+
+    UserPageDto getUsersPageByBirthDateRange(LocalDate start, LocalDate end, String cursor, int size,
+                                             boolean compact);
+
+    void streamUsersByBirthDateRange(LocalDate start, LocalDate end, Consumer<UserView> consumer);
+
+    /**
+     * @throws com.tetiana.usermanager.exception.DuplicateEmailException when the email is taken
+     */
     void create(UserDto user);
 
-    void delete(Long id);
+    /**
+     * The write methods take the version the client last saw, or null to write whatever is current.
+     * A user at any other version fails with {@code PreconditionFailedException}.
+     */
+    void delete(Long id, Long expectedVersion);
+
+    void update(Long id, UserDto user, Long expectedVersion);
+
+    void partialUpdate(Long id, Map<String, Object> fieldsMap, Long expectedVersion);
 
-    void update(Long id, UserDto user);
+    void verifyDateRange(LocalDate start, LocalDate end);
 
-    void partialUpdate(Long id, Map<Object, Object> fieldsMap);
+    void verifyAge(LocalDate birthDate);
 }
@@ -0,0 +1,33 @@
+package com.tetiana.usermanager.service;
+
+import com.tetiana.usermanager.dto.AgeGroupDto;
+import com.tetiana.usermanager.dto.BirthCountDto;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Aggregates over all users' birth dates. They fail with {@code StatisticsNotReadyException} until the
+ * statistics have been loaded after startup.
+ */
+@Service
+public interface UserStatisticsService {
+    /**
+     * Users under the allowed age in one group, then groups of {@code width} years from the allowed age up
+     * to the oldest user's. Empty groups are included.
+     */
+    List<AgeGroupDto> getAgeGroups(int width);
+
+    /**
+     * @return periods in which at least one user was born, earliest first
+     */
+    List<BirthCountDto> getBirthCounts(BirthPeriod period);
+
+    /**
+     * Birthdays from today on, one entry per day including empty ones. Users born on February 29 have
+     * theirs on February 28 in common years.
+     *
+     * @param days number of days, at most a year
+     */
+    List<BirthCountDto> getUpcomingBirthdays(int days);
+}
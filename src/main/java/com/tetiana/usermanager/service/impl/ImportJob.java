@@ -0,0 +1,68 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.ImportJobDto;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of one import, updated concurrently by the pipeline stages.
+ */
+class ImportJob {
+    enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final String id;
+    private final Path rejects;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private volatile Status status = Status.RUNNING;
+    private volatile LocalDateTime finishedAt;
+
+    ImportJob(String id, Path rejects) {
+        this.id = id;
+        this.rejects = rejects;
+    }
+
+    String id() {
+        return id;
+    }
+
+    Path rejects() {
+        return rejects;
+    }
+
+    LocalDateTime startedAt() {
+        return startedAt;
+    }
+
+    boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void rejected(long rows) {
+        rejected.addAndGet(rows);
+    }
+
+    void committed(long rows) {
+        committed.addAndGet(rows);
+    }
+
+    void finish(Status status) {
+        this.finishedAt = LocalDateTime.now();
+        this.status = status;
+    }
+
+    ImportJobDto toDto() {
+        return new ImportJobDto(id, status.name(), rowsRead.get(), rejected.get(), committed.get(), startedAt,
+                finishedAt);
+    }
+}
@@ -0,0 +1,230 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.exception.IdUnavailableException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.service.ReactiveUserService;
+import com.tetiana.usermanager.service.UserService;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * R2DBC implementation of the users API for the {@code reactive} profile. Validation is delegated to
+ * {@link UserService}. Every write commits together with its row in the {@code user_change} outbox, which
+ * the relay of a servlet instance on the same database publishes.
+ */
+@Service
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+    private static final String SELECT_USERS =
+            "SELECT id, email, first_name, last_name, birth_date, address, phone_number, version FROM user";
+    /**
+     * Ids come from the table behind {@link User}'s pooled-lo generator, so both stacks can write to one
+     * database. Claiming a single id with a compare-and-set update fits in between Hibernate's blocks.
+     */
+    private static final String ID_GENERATOR = "user";
+    private static final int ID_CLAIM_ATTEMPTS = 16;
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final UserService userService;
+
+    @Override
+    public Mono<UserView> get(Long id) {
+        return findView(id);
+    }
+
+    @Override
+    public Flux<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end) {
+        return Flux.defer(() -> {
+            userService.verifyDateRange(start, end);
+            return databaseClient.sql(SELECT_USERS
+                            + " WHERE birth_date BETWEEN :start AND :end ORDER BY birth_date, id")
+                    .bind("start", start)
+                    .bind("end", end)
+                    .map(ReactiveUserServiceImpl::toView)
+                    .all()
+                    .map(UserMapper::toDto);
+        });
+    }
+
+    @Override
+    public Mono<Void> create(UserDto user) {
+        return Mono.fromRunnable(() -> userService.verifyAge(user.getBirthDate()))
+                .then(nextId())
+                .flatMap(id -> bindUser(databaseClient.sql("INSERT INTO user"
+                        + " (id, email, first_name, last_name, birth_date, address, phone_number) VALUES"
+                        + " (:id, :email, :firstName, :lastName, :birthDate, :address, :phoneNumber)"), user)
+                        .bind("id", id)
+                        .then()
+                        .then(appendChange(ChangeType.CREATED, id))
+                        .as(transactionalOperator::transactional))
+                .onErrorMap(ReactiveUserServiceImpl::isDuplicateEmail, e -> duplicateEmail(user));
+    }
+
+    @Override
+    public Mono<Void> delete(Long id, Long expectedVersion) {
+        String sql = "DELETE FROM user WHERE id = :id";
+        GenericExecuteSpec spec = databaseClient.sql(expectedVersion == null ? sql
+                : sql + " AND version = :version")
+                .bind("id", id);
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        return spec.fetch()
+                .rowsUpdated()
+                .flatMap(deleted -> deleted > 0 ? appendChange(ChangeType.DELETED, id)
+                        : missingOrChanged(id, expectedVersion))
+                .as(transactionalOperator::transactional);
+    }
+
+    @Override
+    public Mono<Void> update(Long id, UserDto user, Long expectedVersion) {
+        return Mono.fromRunnable(() -> userService.verifyAge(user.getBirthDate()))
+                .then(write(id, user, expectedVersion).as(transactionalOperator::transactional));
+    }
+
+    @Override
+    public Mono<Void> partialUpdate(Long id, Map<String, Object> fieldsMap, Long expectedVersion) {
+        return Mono.fromCallable(() -> {
+                    UserPatch patch = UserPatch.of(fieldsMap);
+                    if (patch.birthDate() != null) {
+                        userService.verifyAge(patch.birthDate());
+                    }
+                    return patch;
+                })
+                .flatMap(patch -> findView(id).flatMap(view -> {
+                    if (expectedVersion != null && !expectedVersion.equals(view.version())) {
+                        return Mono.error(new PreconditionFailedException(
+                                "User " + id + " has changed since version " + expectedVersion));
+                    }
+                    User user = UserMapper.toEntity(UserMapper.toDto(view));
+                    return patch.applyTo(user) ? write(id, UserMapper.toDto(user), view.version()) : Mono.empty();
+                }).as(transactionalOperator::transactional));
+    }
+
+    private Mono<UserView> findView(Long id) {
+        return databaseClient.sql(SELECT_USERS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveUserServiceImpl::toView)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("No user with id " + id)));
+    }
+
+    /**
+     * Overwrites the user and bumps its version. With an expected version the update only applies if nobody
+     * wrote in between, which keeps a read-modify-write from losing a concurrent change.
+     */
+    private Mono<Void> write(Long id, UserDto user, Long expectedVersion) {
+        String sql = "UPDATE user SET email = :email, first_name = :firstName, last_name = :lastName,"
+                + " birth_date = :birthDate, address = :address, phone_number = :phoneNumber,"
+                + " version = version + 1 WHERE id = :id";
+        GenericExecuteSpec spec = bindUser(databaseClient.sql(expectedVersion == null ? sql
+                : sql + " AND version = :version"), user)
+                .bind("id", id);
+        if (expectedVersion != null) {
+            spec = spec.bind("version", expectedVersion);
+        }
+        return spec.fetch()
+                .rowsUpdated()
+                .onErrorMap(ReactiveUserServiceImpl::isDuplicateEmail, e -> duplicateEmail(user))
+                .flatMap(updated -> updated > 0 ? appendChange(ChangeType.UPDATED, id)
+                        : missingOrChanged(id, expectedVersion));
+    }
+
+    /**
+     * Records the write in the outbox, like {@code UserChangeLog} does for the servlet stack, with the local
+     * time its JDBC timestamps stand for. Runs in the write's transaction, so the change is recorded exactly
+     * when the write commits.
+     */
+    private Mono<Void> appendChange(ChangeType type, Long id) {
+        return databaseClient.sql("INSERT INTO user_change (user_id, type, changed_at)"
+                        + " VALUES (:userId, :type, :changedAt)")
+                .bind("userId", id)
+                .bind("type", type.name())
+                .bind("changedAt", LocalDateTime.now())
+                .then();
+    }
+
+    /**
+     * Tells why a single-statement write matched no row. Only failed writes pay for the extra query.
+     */
+    private Mono<Void> missingOrChanged(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.error(() -> new NotFoundException("No user with id " + id));
+        }
+        return findView(id).then(Mono.error(() -> new PreconditionFailedException(
+                "User " + id + " has changed since version " + expectedVersion)));
+    }
+
+    private static boolean isDuplicateEmail(Throwable error) {
+        return error instanceof DataIntegrityViolationException violation
+                && UserServiceImpl.isDuplicateEmail(violation);
+    }
+
+    private static DuplicateEmailException duplicateEmail(UserDto user) {
+        return new DuplicateEmailException("User with email " + User.normalizeEmail(user.getEmail())
+                + " already exists");
+    }
+
+    private Mono<Long> nextId() {
+        return databaseClient.sql("SELECT next_val FROM id_generator WHERE name = :name")
+                .bind("name", ID_GENERATOR)
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("UPDATE id_generator SET next_val = :next"
+                                + " WHERE name = :name AND next_val = :id")
+                        .bind("next", id + 1)
+                        .bind("name", ID_GENERATOR)
+                        .bind("id", id)
+                        .fetch()
+                        .rowsUpdated()
+                        .flatMap(updated -> updated == 1 ? Mono.just(id) : Mono.empty()))
+                .repeatWhenEmpty(ID_CLAIM_ATTEMPTS, attempts -> attempts)
+                .switchIfEmpty(Mono.error(() -> new IdUnavailableException(
+                        "No user id could be claimed in " + ID_CLAIM_ATTEMPTS + " attempts, try again")));
+    }
+
+    private static GenericExecuteSpec bindUser(GenericExecuteSpec spec, UserDto user) {
+        spec = spec.bind("email", User.normalizeEmail(user.getEmail()))
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("birthDate", user.getBirthDate());
+        spec = bindNullable(spec, "address", user.getAddress());
+        return bindNullable(spec, "phoneNumber", user.getPhoneNumber());
+    }
+
+    private static GenericExecuteSpec bindNullable(GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static UserView toView(Readable row) {
+        return new UserView(row.get("id", Long.class),
+                row.get("email", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("birth_date", LocalDate.class),
+                row.get("address", String.class),
+                row.get("phone_number", String.class),
+                row.get("version", Long.class));
+    }
+}
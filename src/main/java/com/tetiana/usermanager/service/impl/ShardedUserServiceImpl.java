@@ -0,0 +1,259 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.cache.UserCache;
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.changes.UserChangeLog;
+import com.tetiana.usermanager.controller.UserController;
+import com.tetiana.usermanager.dto.PageCursor;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.exception.UserUnderAgeException;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.search.UserSearchIndex;
+import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.sharding.ShardedUserStore;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * The users API over {@link ShardedUserStore} for the {@code sharded} profile. Each write is a statement on
+ * the user's shard, which commits on its own; the change log, search index and statistics follow once it
+ * has. The search index and statistics are loaded from every shard.
+ */
+@Service
+@Profile("sharded")
+@Timed("user.service")
+@RequiredArgsConstructor
+@Setter
+@PropertySource("classpath:custom.properties")
+public class ShardedUserServiceImpl implements UserService {
+    private final ShardedUserStore userStore;
+    private final UserCache userCache;
+    private final UserSearchIndex userSearchIndex;
+    private final UserStatistics userStatistics;
+    private final UserChangeLog userChangeLog;
+    @Value("${allowed_age}")
+    private int allowedAge;
+    @Value("${max_page_size}")
+    private int maxPageSize;
+
+    @Override
+    public UserDto get(Long id) {
+        return UserMapper.toDto(getView(id));
+    }
+
+    @Override
+    public UserView getView(Long id) {
+        return userCache.get(id, this::loadView);
+    }
+
+    @Override
+    public List<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end, boolean compact) {
+        verifyDateRange(start, end);
+        return UserServiceImpl.toDtos(userStore.findViewsByBirthDateBetween(start, end), compact);
+    }
+
+    @Override
+    public List<UserView> getViewsByBirthDateRange(LocalDate start, LocalDate end) {
+        verifyDateRange(start, end);
+        return userStore.findViewsByBirthDateBetween(start, end);
+    }
+
+    @Override
+    public List<UserDto> getUsersByEmail(String email, boolean compact) {
+        return UserServiceImpl.toDtos(userStore.findViewByEmail(User.normalizeEmail(email)).stream().toList(),
+                compact);
+    }
+
+    @Override
+    public List<UserDto> getUsersByPhoneNumber(String phoneNumber, boolean compact) {
+        return UserServiceImpl.toDtos(userStore.findViewsByPhoneNumber(phoneNumber), compact);
+    }
+
+    @Override
+    public List<UserDto> searchUsers(String query, int limit, boolean compact) {
+        List<Long> ids = userSearchIndex.search(query, Math.max(1, Math.min(limit, maxPageSize)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserView> found = new HashMap<>();
+        for (UserView user : userStore.findViewsByIdIn(ids)) {
+            found.put(user.id(), user);
+        }
+        List<UserView> users = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            UserView user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return UserServiceImpl.toDtos(users, compact);
+    }
+
+    @Override
+    public void rebuildSearchIndex() {
+        userSearchIndex.rebuild();
+    }
+
+    @Override
+    public UserPageDto getUsersPageByBirthDateRange(LocalDate start, LocalDate end, String cursor, int size,
+                                                    boolean compact) {
+        verifyDateRange(start, end);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        PageCursor after = cursor == null ? null : PageCursor.parse(cursor);
+        // one extra row tells whether a next page exists without a count query
+        List<UserView> users = userStore.findViewsByBirthDateBetweenAfter(start, end,
+                after == null ? null : after.birthDate(), after == null ? null : after.id(), pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        UserPageDto page = new UserPageDto(UserServiceImpl.toDtos(hasNext ? users.subList(0, pageSize) : users,
+                compact), null);
+        if (hasNext) {
+            UserView last = users.get(pageSize - 1);
+            String nextCursor = new PageCursor(last.birthDate(), last.id()).toString();
+            page.setNextCursor(nextCursor);
+            page.add(linkTo(methodOn(UserController.class)
+                    .getUsersPage(start, end, nextCursor, pageSize, compact))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        return page;
+    }
+
+    @Override
+    public void streamUsersByBirthDateRange(LocalDate start, LocalDate end, Consumer<UserView> consumer) {
+        verifyDateRange(start, end);
+        userStore.streamViewsByBirthDateBetween(start, end, consumer);
+    }
+
+    @Override
+    public void create(UserDto userDto) {
+        verifyAge(userDto.getBirthDate());
+        User user = UserMapper.toEntity(userDto);
+        writeUnique(user.getEmail(), () -> {
+            userStore.insert(user);
+            return null;
+        });
+        userSearchIndex.put(user);
+        userStatistics.put(user.getId(), user.getBirthDate());
+        userChangeLog.append(ChangeType.CREATED, user.getId());
+    }
+
+    @Override
+    public void delete(Long id, Long expectedVersion) {
+        userCache.invalidate(id);
+        if (userStore.deleteByIdAtVersion(id, expectedVersion) == 0) {
+            throw missingOrChanged(id, expectedVersion);
+        }
+        userSearchIndex.remove(id);
+        userStatistics.remove(id);
+        userChangeLog.append(ChangeType.DELETED, id);
+    }
+
+    @Override
+    public void update(Long id, UserDto userDto, Long expectedVersion) {
+        verifyAge(userDto.getBirthDate());
+        userCache.invalidate(id);
+        String email = User.normalizeEmail(userDto.getEmail());
+        int updated = writeUnique(email, () -> userStore.updateByIdAtVersion(id, email, userDto.getFirstName(),
+                userDto.getLastName(), userDto.getBirthDate(), userDto.getAddress(), userDto.getPhoneNumber(),
+                expectedVersion));
+        if (updated == 0) {
+            throw missingOrChanged(id, expectedVersion);
+        }
+        userSearchIndex.put(id, userDto.getFirstName(), userDto.getLastName(), email, userDto.getAddress());
+        userStatistics.put(id, userDto.getBirthDate());
+        userChangeLog.append(ChangeType.UPDATED, id);
+    }
+
+    /**
+     * Applies the patch to the user as read and writes it back at that version, so a write in between fails
+     * with {@code PreconditionFailedException}.
+     */
+    @Override
+    public void partialUpdate(Long id, Map<String, Object> fieldsMap, Long expectedVersion) {
+        UserPatch patch = UserPatch.of(fieldsMap);
+        if (patch.birthDate() != null) {
+            verifyAge(patch.birthDate());
+        }
+        User user = userStore.findById(id)
+                .orElseThrow(() -> new NotFoundException("No user with id " + id));
+        if (expectedVersion != null && expectedVersion != user.getVersion()) {
+            throw new PreconditionFailedException("User " + id + " has changed since version " + expectedVersion);
+        }
+        if (patch.applyTo(user)) {
+            userCache.invalidate(id);
+            int updated = writeUnique(user.getEmail(), () -> userStore.updateByIdAtVersion(id, user.getEmail(),
+                    user.getFirstName(), user.getLastName(), user.getBirthDate(), user.getAddress(),
+                    user.getPhoneNumber(), user.getVersion()));
+            if (updated == 0) {
+                throw missingOrChanged(id, user.getVersion());
+            }
+            userSearchIndex.put(user);
+            userStatistics.put(id, user.getBirthDate());
+            userChangeLog.append(ChangeType.UPDATED, id);
+        }
+    }
+
+    @Override
+    public void verifyDateRange(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            throw new IncorrectDateRangeException("Start date should be before end date");
+        }
+    }
+
+    @Override
+    public void verifyAge(LocalDate birthDate) {
+        Period difference = Period.between(birthDate, LocalDate.now());
+        if (difference.getYears() < allowedAge) {
+            throw new UserUnderAgeException("Users under " + allowedAge + " y.o. are not allowed");
+        }
+    }
+
+    private <T> T writeUnique(String email, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (UserServiceImpl.isDuplicateEmail(e)) {
+                throw new DuplicateEmailException("User with email " + email + " already exists");
+            }
+            throw e;
+        }
+    }
+
+    private RuntimeException missingOrChanged(Long id, Long expectedVersion) {
+        if (expectedVersion != null && userStore.findViewById(id).isPresent()) {
+            return new PreconditionFailedException("User " + id + " has changed since version " + expectedVersion);
+        }
+        return new NotFoundException("No user with id " + id);
+    }
+
+    private UserView loadView(Long id) {
+        return userStore.findViewById(id)
+                .orElseThrow(() -> new NotFoundException("No user with id " + id));
+    }
+}
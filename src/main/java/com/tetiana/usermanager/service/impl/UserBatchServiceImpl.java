@@ -0,0 +1,248 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.cache.UserCache;
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.changes.UserChangeLog;
+import com.tetiana.usermanager.dto.BatchItemErrorDto;
+import com.tetiana.usermanager.dto.BatchResultDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.UserUnderAgeException;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.search.UserSearchIndex;
+import com.tetiana.usermanager.service.UserBatchService;
+import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validates every item on its own and writes the valid ones in chunks, one transaction per chunk.
+ * A failing chunk is rolled back and its items are written again one at a time, so only the items at fault
+ * are reported; other chunks are not affected.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Setter
+@PropertySource("classpath:custom.properties")
+public class UserBatchServiceImpl implements UserBatchService {
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserCache userCache;
+    private final UserSearchIndex userSearchIndex;
+    private final UserStatistics userStatistics;
+    private final UserChangeLog userChangeLog;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    @Value("${batch_chunk_size}")
+    private int chunkSize;
+
+    @Override
+    public BatchResultDto createAll(List<UserDto> users) {
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        List<Item<UserDto>> valid = validate(users, false, errors);
+        int succeeded = 0;
+        for (List<Item<UserDto>> chunk : chunks(valid)) {
+            succeeded += writeChunk(chunk, errors, items -> {
+                List<User> created = new ArrayList<>(items.size());
+                for (Item<UserDto> item : items) {
+                    User user = UserMapper.toEntity(item.value());
+                    user.setId(null);
+                    created.add(user);
+                }
+                userRepository.saveAllAndFlush(created);
+                userSearchIndex.putAll(created);
+                userStatistics.putAll(created);
+                userChangeLog.appendAll(ChangeType.CREATED, created.stream().map(User::getId).toList());
+                return List.of();
+            });
+        }
+        return new BatchResultDto(users.size(), succeeded, errors);
+    }
+
+    @Override
+    public BatchResultDto updateAll(List<UserDto> users) {
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        List<Item<UserDto>> valid = validate(users, true, errors);
+        int succeeded = 0;
+        for (List<Item<UserDto>> chunk : chunks(valid)) {
+            succeeded += writeChunk(chunk, errors, items -> {
+                Map<Long, User> existing = userRepository.findAllById(items.stream()
+                                .map(item -> item.value().getId())
+                                .toList())
+                        .stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+                List<BatchItemErrorDto> missing = new ArrayList<>();
+                List<User> updated = new ArrayList<>(items.size());
+                for (Item<UserDto> item : items) {
+                    User user = existing.get(item.value().getId());
+                    if (user == null) {
+                        missing.add(notFound(item.index(), item.value().getId()));
+                    } else {
+                        UserMapper.copyToEntity(item.value(), user);
+                        userCache.invalidate(user.getId());
+                        updated.add(user);
+                    }
+                }
+                // a write the database rejects fails here, before the index and statistics see it
+                userRepository.flush();
+                userSearchIndex.putAll(updated);
+                userStatistics.putAll(updated);
+                userChangeLog.appendAll(ChangeType.UPDATED, updated.stream().map(User::getId).toList());
+                return missing;
+            });
+        }
+        return new BatchResultDto(users.size(), succeeded, errors);
+    }
+
+    @Override
+    public BatchResultDto deleteAll(List<Long> ids) {
+        List<BatchItemErrorDto> errors = new ArrayList<>();
+        List<Item<Long>> items = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                errors.add(new BatchItemErrorDto(i, null, List.of("Id may not be null")));
+            } else {
+                items.add(new Item<>(i, ids.get(i), ids.get(i)));
+            }
+        }
+        int succeeded = 0;
+        for (List<Item<Long>> chunk : chunks(items)) {
+            succeeded += writeChunk(chunk, errors, chunkItems -> {
+                List<Long> existing = userRepository.findExistingIds(chunkItems.stream().map(Item::value).toList());
+                userRepository.deleteAllByIdInBatch(existing);
+                existing.forEach(userCache::invalidate);
+                userSearchIndex.removeAll(existing);
+                userStatistics.removeAll(existing);
+                userChangeLog.appendAll(ChangeType.DELETED, existing);
+                return chunkItems.stream()
+                        .filter(item -> !existing.contains(item.value()))
+                        .map(item -> notFound(item.index(), item.value()))
+                        .toList();
+            });
+        }
+        return new BatchResultDto(ids.size(), succeeded, errors);
+    }
+
+    private List<Item<UserDto>> validate(List<UserDto> users, boolean requireId, List<BatchItemErrorDto> errors) {
+        List<Item<UserDto>> valid = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            UserDto user = users.get(i);
+            List<String> messages = validate(user, requireId);
+            if (messages.isEmpty()) {
+                valid.add(new Item<>(i, user.getId(), user));
+            } else {
+                errors.add(new BatchItemErrorDto(i, user == null ? null : user.getId(), messages));
+            }
+        }
+        return valid;
+    }
+
+    private List<String> validate(UserDto user, boolean requireId) {
+        if (user == null) {
+            return List.of("User may not be null");
+        }
+        List<String> messages = new ArrayList<>();
+        if (requireId && user.getId() == null) {
+            messages.add("Id may not be null");
+        }
+        for (ConstraintViolation<UserDto> violation : validator.validate(user)) {
+            messages.add(violation.getMessage());
+        }
+        if (user.getBirthDate() != null) {
+            try {
+                userService.verifyAge(user.getBirthDate());
+            } catch (UserUnderAgeException e) {
+                messages.add(e.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Runs the chunk in its own transaction. When that fails, every item is run again in a transaction of its
+     * own, which tells the items at fault from the ones that only shared their chunk.
+     *
+     * @param writer writes the chunk and returns errors for items it skipped
+     * @return number of items written
+     */
+    private <T> int writeChunk(List<Item<T>> chunk, List<BatchItemErrorDto> errors,
+                               Function<List<Item<T>>, List<BatchItemErrorDto>> writer) {
+        try {
+            return write(chunk, errors, writer);
+        } catch (RuntimeException e) {
+            int written = 0;
+            for (Item<T> item : chunk) {
+                try {
+                    written += write(List.of(item), errors, writer);
+                } catch (RuntimeException itemError) {
+                    errors.add(new BatchItemErrorDto(item.index(), item.id(), List.of(writeError(item, itemError))));
+                }
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Runs the writer in a transaction and clears the persistence context afterwards.
+     */
+    private <T> int write(List<Item<T>> items, List<BatchItemErrorDto> errors,
+                          Function<List<Item<T>>, List<BatchItemErrorDto>> writer) {
+        try {
+            List<BatchItemErrorDto> skipped = transactionTemplate.execute(status -> writer.apply(items));
+            errors.addAll(skipped);
+            return items.size() - skipped.size();
+        } finally {
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Errors carry a message fit for the client rather than the database's own, which names tables and SQL.
+     */
+    private static String writeError(Item<?> item, RuntimeException e) {
+        if (item.value() instanceof UserDto user && e instanceof DataIntegrityViolationException violation
+                && UserServiceImpl.isDuplicateEmail(violation)) {
+            return "User with email " + User.normalizeEmail(user.getEmail()) + " already exists";
+        }
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        log.warn("Could not write batch item {}: {}", item.index(),
+                Objects.toString(cause.getMessage(), cause.getClass().getSimpleName()));
+        return "User could not be saved";
+    }
+
+    private <T> List<List<Item<T>>> chunks(List<Item<T>> items) {
+        List<List<Item<T>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            chunks.add(items.subList(from, Math.min(from + chunkSize, items.size())));
+        }
+        return chunks;
+    }
+
+    private BatchItemErrorDto notFound(int index, Long id) {
+        return new BatchItemErrorDto(index, id, List.of("No user with id " + id));
+    }
+
+    private record Item<T>(int index, Long id, T value) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.changes.UserChangeRelay;
+import com.tetiana.usermanager.dto.UserChangeDto;
+import com.tetiana.usermanager.dto.UserChangePageDto;
+import com.tetiana.usermanager.service.UserChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long polls hold no thread while they wait: they complete on the relay's thread once it publishes, reading
+ * the new changes from its in-memory tail.
+ */
+@Service
+@RequiredArgsConstructor
+@Setter
+@PropertySource("classpath:custom.properties")
+public class UserChangeServiceImpl implements UserChangeService {
+    private final UserChangeRelay userChangeRelay;
+    @Value("${max_page_size}")
+    private int maxPageSize;
+    @Value("${change_wait_max}")
+    private Duration maxWait;
+
+    @Override
+    public CompletableFuture<UserChangePageDto> getChanges(long since, int limit, Duration wait) {
+        long from = Math.max(0, since);
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        UserChangePageDto page = read(from, size);
+        if (!page.getChanges().isEmpty() || wait.isNegative() || wait.isZero()) {
+            return CompletableFuture.completedFuture(page);
+        }
+        long timeout = (wait.compareTo(maxWait) < 0 ? wait : maxWait).toMillis();
+        return userChangeRelay.awaitAfter(from)
+                .completeOnTimeout(null, timeout, TimeUnit.MILLISECONDS)
+                .thenApply(published -> read(from, size));
+    }
+
+    private UserChangePageDto read(long since, int limit) {
+        List<UserChangeDto> changes = userChangeRelay.read(since, limit);
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getPosition();
+        return new UserChangePageDto(changes, next);
+    }
+}
@@ -0,0 +1,80 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.mapper.UserSequenceWriter;
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserExportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Streams users from a forward-only JDBC cursor straight into the output, one row at a time. No entities or
+ * lists are built, only a {@code UserView} per row, so memory use does not depend on the number of rows. On MySQL a fetch size of
+ * {@code Integer.MIN_VALUE} makes the driver stream rows instead of buffering the whole result.
+ */
+@Service
+@PropertySource("classpath:custom.properties")
+public class UserExportServiceImpl implements UserExportService {
+    private static final String SELECT = "SELECT id, email, first_name, last_name, birth_date, address, "
+            + "phone_number, version FROM user";
+    private static final String SELECT_ALL = SELECT + " ORDER BY id";
+    private static final String SELECT_RANGE = SELECT + " WHERE birth_date BETWEEN ? AND ? ORDER BY birth_date, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserExportServiceImpl(DataSource dataSource, @Value("${export_fetch_size}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public UserExport export(UserDataFormat format, LocalDate start, LocalDate end) {
+        if ((start == null) != (end == null)) {
+            throw new IncorrectDateRangeException("Start and end date should be given together");
+        }
+        if (start != null && start.isAfter(end)) {
+            throw new IncorrectDateRangeException("Start date should be before end date");
+        }
+        return output -> {
+            UserSequenceWriter writer = UserSequenceWriter.of(format, output);
+            try {
+                query(start, end, resultSet -> {
+                    try {
+                        writer.write(toView(resultSet));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+    }
+
+    private void query(LocalDate start, LocalDate end, RowCallbackHandler handler) {
+        if (start == null) {
+            jdbcTemplate.query(SELECT_ALL, handler);
+        } else {
+            jdbcTemplate.query(SELECT_RANGE, handler, Date.valueOf(start), Date.valueOf(end));
+        }
+    }
+
+    private static UserView toView(ResultSet resultSet) throws SQLException {
+        return new UserView(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4), resultSet.getObject(5, LocalDate.class), resultSet.getString(6),
+                resultSet.getString(7), resultSet.getLong(8));
+    }
+}
@@ -0,0 +1,387 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.changes.UserChangeLog;
+import com.tetiana.usermanager.dto.ImportJobDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.InvalidImportException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.UserUnderAgeException;
+import com.tetiana.usermanager.mapper.UserCsv;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.search.UserSearchIndex;
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserImportService;
+import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports users through a three stage pipeline connected by bounded queues:
+ * <ol>
+ *     <li>the calling thread reads the body line by line,</li>
+ *     <li>{@code import_workers} threads parse and validate lines,</li>
+ *     <li>one writer thread saves valid users in chunks of {@code batch_chunk_size}, one transaction each.</li>
+ * </ol>
+ * A full queue blocks the stage before it, so a slow database slows down reading the upload instead of
+ * filling the heap. Rejected lines are appended to a per-job rejects file as NDJSON.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Setter
+@PropertySource("classpath:custom.properties")
+public class UserImportServiceImpl implements UserImportService {
+    private static final Line END = new Line(-1, null);
+    private static final Parsed DONE = new Parsed(null, null);
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserSearchIndex userSearchIndex;
+    private final UserStatistics userStatistics;
+    private final UserChangeLog userChangeLog;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    @Value("${import_workers}")
+    private int workers;
+    @Value("${import_queue_capacity}")
+    private int queueCapacity;
+    @Value("${import_jobs_retained}")
+    private int jobsRetained;
+    @Value("${batch_chunk_size}")
+    private int chunkSize;
+
+    @Override
+    public ImportJobDto importUsers(InputStream input, UserDataFormat format) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        LineParser parser = format == UserDataFormat.CSV ? csvParser(reader) : this::parseJson;
+        ImportJob job = startJob();
+        BlockingQueue<Line> lines = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Parsed> valid = new ArrayBlockingQueue<>(queueCapacity);
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1);
+        try (Rejects rejects = new Rejects(job)) {
+            List<Future<?>> stages = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                stages.add(executor.submit(() -> validate(lines, valid, parser, rejects)));
+            }
+            stages.add(executor.submit(() -> write(valid, rejects)));
+            ImportJob.Status status = read(reader, format == UserDataFormat.CSV ? 1 : 0, lines, job, stages);
+            for (Future<?> stage : stages) {
+                stage.get();
+            }
+            job.finish(status);
+        } catch (Exception e) {
+            log.error("Import {} failed", job.id(), e);
+            job.finish(ImportJob.Status.FAILED);
+        } finally {
+            executor.shutdownNow();
+        }
+        return job.toDto();
+    }
+
+    @Override
+    public ImportJobDto getJob(String id) {
+        return findJob(id).toDto();
+    }
+
+    @Override
+    public List<ImportJobDto> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::startedAt))
+                .map(ImportJob::toDto)
+                .toList();
+    }
+
+    @Override
+    public Path getRejects(String id) {
+        return findJob(id).rejects();
+    }
+
+    /**
+     * @param number number of lines already consumed, e.g. the CSV header
+     */
+    private ImportJob.Status read(BufferedReader reader, long number, BlockingQueue<Line> lines, ImportJob job,
+                                  List<Future<?>> stages) throws InterruptedException {
+        ImportJob.Status status = ImportJob.Status.COMPLETED;
+        try {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                number++;
+                if (!text.isBlank()) {
+                    job.rowRead();
+                    put(lines, new Line(number, text), stages);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Import {} stopped reading at line {}", job.id(), number, e);
+            status = ImportJob.Status.FAILED;
+        }
+        for (int i = 0; i < workers; i++) {
+            put(lines, END, stages);
+        }
+        return status;
+    }
+
+    /**
+     * Blocks while the queue is full, unless a later stage has died and will never drain it.
+     */
+    private void put(BlockingQueue<Line> lines, Line line, List<Future<?>> stages) throws InterruptedException {
+        while (!lines.offer(line, 1, TimeUnit.SECONDS)) {
+            for (Future<?> stage : stages) {
+                if (stage.isDone()) {
+                    throw new IllegalStateException("Import stage stopped unexpectedly");
+                }
+            }
+        }
+    }
+
+    private Void validate(BlockingQueue<Line> lines, BlockingQueue<Parsed> valid, LineParser parser,
+                          Rejects rejects) throws InterruptedException {
+        Line line;
+        while ((line = lines.take()) != END) {
+            List<String> messages;
+            try {
+                UserDto user = parser.parse(line.text());
+                messages = validate(user);
+                if (messages.isEmpty()) {
+                    User entity = UserMapper.toEntity(user);
+                    entity.setId(null);
+                    valid.put(new Parsed(line, entity));
+                    continue;
+                }
+            } catch (RuntimeException | IOException e) {
+                Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+                messages = List.of("Unreadable record: "
+                        + Objects.toString(cause.getMessage(), cause.getClass().getSimpleName()));
+            }
+            rejects.add(line, messages);
+        }
+        valid.put(DONE);
+        return null;
+    }
+
+    private List<String> validate(UserDto user) {
+        List<String> messages = new ArrayList<>();
+        for (ConstraintViolation<UserDto> violation : validator.validate(user)) {
+            messages.add(violation.getMessage());
+        }
+        if (user.getBirthDate() != null) {
+            try {
+                userService.verifyAge(user.getBirthDate());
+            } catch (UserUnderAgeException e) {
+                messages.add(e.getMessage());
+            }
+        }
+        return messages;
+    }
+
+    private Void write(BlockingQueue<Parsed> valid, Rejects rejects) throws InterruptedException {
+        List<Parsed> chunk = new ArrayList<>(chunkSize);
+        int running = workers;
+        while (running > 0) {
+            Parsed parsed = valid.take();
+            if (parsed == DONE) {
+                running--;
+                continue;
+            }
+            chunk.add(parsed);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, rejects);
+                chunk.clear();
+            }
+        }
+        writeChunk(chunk, rejects);
+        return null;
+    }
+
+    /**
+     * Writes the chunk in one transaction. When that fails, the lines are written one at a time so that only
+     * the offending ones are rejected.
+     */
+    private void writeChunk(List<Parsed> chunk, Rejects rejects) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            save(chunk.stream().map(Parsed::user).toList());
+            rejects.job().committed(chunk.size());
+        } catch (RuntimeException e) {
+            for (Parsed parsed : chunk) {
+                // the failed flush may have handed out an id that was rolled back
+                parsed.user().setId(null);
+                try {
+                    save(List.of(parsed.user()));
+                    rejects.job().committed(1);
+                } catch (RuntimeException lineError) {
+                    rejects.add(parsed.line(), List.of(saveError(parsed.user(), lineError)));
+                }
+            }
+        }
+    }
+
+    private void save(List<User> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.saveAllAndFlush(users);
+            userSearchIndex.putAll(users);
+            userStatistics.putAll(users);
+            userChangeLog.appendAll(ChangeType.CREATED, users.stream().map(User::getId).toList());
+        });
+    }
+
+    /**
+     * Rejects carry a message fit for the client rather than the database's own, which names tables and SQL.
+     */
+    private static String saveError(User user, RuntimeException e) {
+        if (e instanceof DataIntegrityViolationException violation && UserServiceImpl.isDuplicateEmail(violation)) {
+            return "User with email " + user.getEmail() + " already exists";
+        }
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        log.warn("Could not import user {}: {}", user.getEmail(),
+                Objects.toString(cause.getMessage(), cause.getClass().getSimpleName()));
+        return "User could not be saved";
+    }
+
+    private LineParser csvParser(BufferedReader reader) {
+        int[] positions;
+        try {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new InvalidImportException("CSV header is missing");
+            }
+            positions = UserCsv.parseHeader(header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportException(e.getMessage());
+        }
+        return text -> UserCsv.parse(text, positions);
+    }
+
+    private UserDto parseJson(String text) throws IOException {
+        return objectMapper.readValue(text, UserDto.class);
+    }
+
+    private ImportJob startJob() {
+        String id = UUID.randomUUID().toString();
+        Path rejects;
+        try {
+            rejects = Files.createTempFile("user-import-" + id, ".ndjson");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ImportJob job = new ImportJob(id, rejects);
+        jobs.put(id, job);
+        evictFinishedJobs();
+        return job;
+    }
+
+    private void evictFinishedJobs() {
+        List<ImportJob> finished = jobs.values().stream()
+                .filter(job -> !job.isRunning())
+                .sorted(Comparator.comparing(ImportJob::startedAt))
+                .toList();
+        for (int i = 0; i < finished.size() - jobsRetained; i++) {
+            ImportJob job = finished.get(i);
+            jobs.remove(job.id());
+            try {
+                Files.deleteIfExists(job.rejects());
+            } catch (IOException e) {
+                log.warn("Could not delete {}", job.rejects(), e);
+            }
+        }
+    }
+
+    private ImportJob findJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("No import with id " + id);
+        }
+        return job;
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        UserDto parse(String text) throws IOException;
+    }
+
+    private record Line(long number, String text) {
+    }
+
+    private record Parsed(Line line, User user) {
+    }
+
+    /**
+     * Rejects file of a job, shared by the validating and writing stages.
+     */
+    private class Rejects implements AutoCloseable {
+        private final ImportJob job;
+        private final BufferedWriter writer;
+
+        Rejects(ImportJob job) throws IOException {
+            this.job = job;
+            this.writer = Files.newBufferedWriter(job.rejects(), StandardCharsets.UTF_8);
+        }
+
+        ImportJob job() {
+            return job;
+        }
+
+        synchronized void add(Line line, List<String> messages) {
+            job.rejected(1);
+            Map<String, Object> reject = new LinkedHashMap<>();
+            reject.put("line", line.number());
+            reject.put("messages", messages);
+            reject.put("record", line.text());
+            try {
+                writer.write(objectMapper.writeValueAsString(reject));
+                writer.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            writer.close();
+        }
+    }
+}
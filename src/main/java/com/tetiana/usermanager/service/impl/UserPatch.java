@@ -0,0 +1,122 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.InvalidPatchException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A PATCH request body checked against the patchable {@link User} fields and converted to typed values.
+ * The setter table is built once; applying a patch is a plain method call per field.
+ */
+final class UserPatch {
+    private static final Map<String, PatchableField<?>> FIELDS = Map.of(
+            "email", PatchableField.ofString(User::getEmail, User::setEmail, false),
+            "firstName", PatchableField.ofString(User::getFirstName, User::setFirstName, false),
+            "lastName", PatchableField.ofString(User::getLastName, User::setLastName, false),
+            "address", PatchableField.ofString(User::getAddress, User::setAddress, true),
+            "phoneNumber", PatchableField.ofString(User::getPhoneNumber, User::setPhoneNumber, true),
+            "birthDate", new PatchableField<>(User::getBirthDate, User::setBirthDate, UserPatch::toLocalDate,
+                    false));
+
+    private final List<FieldValue<?>> values;
+    private final LocalDate birthDate;
+
+    private UserPatch(List<FieldValue<?>> values, LocalDate birthDate) {
+        this.values = values;
+        this.birthDate = birthDate;
+    }
+
+    static UserPatch of(Map<String, Object> fieldsMap) {
+        List<FieldValue<?>> values = new ArrayList<>(fieldsMap.size());
+        LocalDate birthDate = null;
+        for (Map.Entry<String, Object> entry : fieldsMap.entrySet()) {
+            PatchableField<?> field = FIELDS.get(entry.getKey());
+            if (field == null) {
+                throw new InvalidPatchException("Field " + entry.getKey() + " can not be patched");
+            }
+            FieldValue<?> value = field.convert(entry.getKey(), entry.getValue());
+            if (value.value() instanceof LocalDate date) {
+                birthDate = date;
+            }
+            values.add(value);
+        }
+        return new UserPatch(values, birthDate);
+    }
+
+    /**
+     * @return the new birth date, or null if the patch does not change it
+     */
+    LocalDate birthDate() {
+        return birthDate;
+    }
+
+    /**
+     * @return whether any field of the user actually changed
+     */
+    boolean applyTo(User user) {
+        boolean changed = false;
+        for (FieldValue<?> value : values) {
+            changed |= value.applyTo(user);
+        }
+        return changed;
+    }
+
+    private static String toString(String name, Object value) {
+        if (value instanceof String string) {
+            return string;
+        }
+        throw wrongValue(name);
+    }
+
+    private static LocalDate toLocalDate(String name, Object value) {
+        if (value instanceof String date) {
+            try {
+                return LocalDate.parse(date);
+            } catch (DateTimeParseException e) {
+                throw wrongValue(name);
+            }
+        }
+        throw wrongValue(name);
+    }
+
+    private static InvalidPatchException wrongValue(String name) {
+        return new InvalidPatchException("Wrong value for field " + name);
+    }
+
+    /**
+     * @param converter turns a JSON value into the field's type, given the field name for the error
+     */
+    private record PatchableField<T>(Function<User, T> getter, BiConsumer<User, T> setter,
+                                     BiFunction<String, Object, T> converter, boolean nullable) {
+        static PatchableField<String> ofString(Function<User, String> getter, BiConsumer<User, String> setter,
+                                               boolean nullable) {
+            return new PatchableField<>(getter, setter, UserPatch::toString, nullable);
+        }
+
+        FieldValue<T> convert(String name, Object value) {
+            if (value == null && !nullable) {
+                throw new InvalidPatchException("Field " + name + " may not be null");
+            }
+            return new FieldValue<>(this, value == null ? null : converter.apply(name, value));
+        }
+    }
+
+    private record FieldValue<T>(PatchableField<T> field, T value) {
+        boolean applyTo(User user) {
+            if (Objects.equals(field.getter().apply(user), value)) {
+                return false;
+            }
+            field.setter().accept(user, value);
+            return true;
+        }
+    }
+}
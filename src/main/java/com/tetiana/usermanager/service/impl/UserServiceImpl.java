@@ -1,111 +1,323 @@
 package com.tetiana.usermanager.service.impl;
 
+import com.tetiana.usermanager.cache.UserCache;
+import com.tetiana.usermanager.changes.ChangeType;
+import com.tetiana.usermanager.changes.UserChangeLog;
 import com.tetiana.usermanager.controller.UserController;
+import com.tetiana.usermanager.controller.UserLinks;
+import com.tetiana.usermanager.dto.PageCursor;
 import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
 import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
 import com.tetiana.usermanager.exception.IncorrectDateRangeException;
 import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
 import com.tetiana.usermanager.exception.UserUnderAgeException;
+import com.tetiana.usermanager.mapper.UserMapper;
 import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.routing.ReadRouting;
+import com.tetiana.usermanager.search.UserSearchIndex;
 import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.PropertySource;
-import org.springframework.hateoas.Link;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.time.Period;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 
 @Service
+@Profile("!sharded")
+@Timed("user.service")
 @RequiredArgsConstructor
 @Setter
 @PropertySource("classpath:custom.properties")
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final UserCache userCache;
+    private final UserSearchIndex userSearchIndex;
+    private final UserStatistics userStatistics;
+    private final UserChangeLog userChangeLog;
+    private final ReadRouting readRouting;
     @Value("${allowed_age}")
     private int allowedAge;
+    @Value("${max_page_size}")
+    private int maxPageSize;
+    @Value("${range_cache_max_days}")
+    private int rangeCacheMaxDays;
 
     @Override
     public UserDto get(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new NotFoundException("No user with id " + id));
-        return modelMapper.map(user, UserDto.class);
+        return UserMapper.toDto(getView(id));
+    }
+
+    @Override
+    public UserView getView(Long id) {
+        return userCache.get(id, this::loadView);
     }
 
     @Override
     @Transactional
     public void create(UserDto userDto) {
         verifyAge(userDto.getBirthDate());
-        userRepository.save(modelMapper.map(userDto, User.class));
+        User user = UserMapper.toEntity(userDto);
+        // ids are assigned here, existing users are changed through update
+        user.setId(null);
+        writeUnique(user.getEmail(), () -> userRepository.saveAndFlush(user));
+        userSearchIndex.put(user);
+        userStatistics.put(user.getId(), user.getBirthDate());
+        userChangeLog.append(ChangeType.CREATED, user.getId());
     }
 
     @Override
     @Transactional
-    public void delete(Long id) {
-        userRepository.deleteById(id);
+    public void delete(Long id, Long expectedVersion) {
+        userCache.invalidate(id);
+        if (userRepository.deleteByIdAtVersion(id, expectedVersion) == 0) {
+            throw missingOrChanged(id, expectedVersion);
+        }
+        userSearchIndex.remove(id);
+        userStatistics.remove(id);
+        userChangeLog.append(ChangeType.DELETED, id);
     }
 
     @Override
     @Transactional
-    public void update(Long id, UserDto userDto) {
+    public void update(Long id, UserDto userDto, Long expectedVersion) {
         verifyAge(userDto.getBirthDate());
-        User user = modelMapper.map(userDto, User.class);
-        user.setId(id);
-        userRepository.save(user);
+        userCache.invalidate(id);
+        String email = User.normalizeEmail(userDto.getEmail());
+        int updated = writeUnique(email, () -> userRepository.updateByIdAtVersion(id, email,
+                userDto.getFirstName(), userDto.getLastName(), userDto.getBirthDate(), userDto.getAddress(),
+                userDto.getPhoneNumber(), expectedVersion));
+        if (updated == 0) {
+            throw missingOrChanged(id, expectedVersion);
+        }
+        userSearchIndex.put(id, userDto.getFirstName(), userDto.getLastName(), email, userDto.getAddress());
+        userStatistics.put(id, userDto.getBirthDate());
+        userChangeLog.append(ChangeType.UPDATED, id);
     }
 
     @Override
     @Transactional
-    public void partialUpdate(Long id, Map<Object, Object> fieldsMap) {
+    public void partialUpdate(Long id, Map<String, Object> fieldsMap, Long expectedVersion) {
+        UserPatch patch = UserPatch.of(fieldsMap);
+        if (patch.birthDate() != null) {
+            verifyAge(patch.birthDate());
+        }
+        User user = findForWrite(id, expectedVersion);
+        if (patch.applyTo(user)) {
+            userCache.invalidate(id);
+            writeUnique(user.getEmail(), () -> userRepository.saveAndFlush(user));
+            userSearchIndex.put(user);
+            userStatistics.put(id, user.getBirthDate());
+            userChangeLog.append(ChangeType.UPDATED, id);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end, boolean compact) {
+        return toDtos(findViewsByBirthDateRange(start, end), compact);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserView> getViewsByBirthDateRange(LocalDate start, LocalDate end) {
+        return findViewsByBirthDateRange(start, end);
+    }
+
+    private List<UserView> findViewsByBirthDateRange(LocalDate start, LocalDate end) {
+        verifyDateRange(start, end);
+        // short windows repeat and stay small enough to keep in the query cache, longer ones go to the database
+        return ChronoUnit.DAYS.between(start, end) < rangeCacheMaxDays
+                ? userRepository.findCachedViewsByBirthDateBetween(start, end)
+                : userRepository.findViewsByBirthDateBetween(start, end);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByEmail(String email, boolean compact) {
+        return toDtos(userRepository.findViewByEmail(User.normalizeEmail(email)).stream().toList(), compact);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> getUsersByPhoneNumber(String phoneNumber, boolean compact) {
+        return toDtos(userRepository.findViewsByPhoneNumber(phoneNumber), compact);
+    }
+
+    /**
+     * The index only picks the ids; the users themselves are read in one query, so results always show
+     * committed data and users deleted meanwhile drop out.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> searchUsers(String query, int limit, boolean compact) {
+        List<Long> ids = userSearchIndex.search(query, Math.max(1, Math.min(limit, maxPageSize)));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserView> found = new HashMap<>();
+        for (UserView user : userRepository.findViewsByIdIn(ids)) {
+            found.put(user.id(), user);
+        }
+        List<UserView> users = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            UserView user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return toDtos(users, compact);
+    }
+
+    @Override
+    public void rebuildSearchIndex() {
+        userSearchIndex.rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageDto getUsersPageByBirthDateRange(LocalDate start, LocalDate end, String cursor, int size,
+                                                    boolean compact) {
+        verifyDateRange(start, end);
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        // one extra row tells whether a next page exists without a count query
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        List<UserView> users;
+        if (cursor == null) {
+            users = userRepository.findViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(start, end, limit);
+        } else {
+            PageCursor after = PageCursor.parse(cursor);
+            users = userRepository.findViewsByBirthDateBetweenAfter(start, end, after.birthDate(), after.id(),
+                    limit);
+        }
+        boolean hasNext = users.size() > pageSize;
+        UserPageDto page = new UserPageDto(toDtos(hasNext ? users.subList(0, pageSize) : users, compact), null);
+        if (hasNext) {
+            UserView last = users.get(pageSize - 1);
+            String nextCursor = new PageCursor(last.birthDate(), last.id()).toString();
+            page.setNextCursor(nextCursor);
+            page.add(linkTo(methodOn(UserController.class)
+                    .getUsersPage(start, end, nextCursor, pageSize, compact))
+                    .withRel(IanaLinkRelations.NEXT));
+        }
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUsersByBirthDateRange(LocalDate start, LocalDate end, Consumer<UserView> consumer) {
+        verifyDateRange(start, end);
+        try (Stream<UserView> users = userRepository.streamViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(start,
+                end)) {
+            users.forEach(consumer);
+        }
+    }
+
+    /**
+     * Loads the user to change. Hibernate then checks the version again in the {@code UPDATE}, so a write
+     * committed in between fails with an optimistic locking exception.
+     */
+    private User findForWrite(Long id, Long expectedVersion) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new NotFoundException("No user with id " + id));
-        fieldsMap.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(User.class, (String) key);
-            if (field != null) {
-                if (field.getName().equals("birthDate")) {
-                    LocalDate birthDate = LocalDate.parse((String) fieldsMap.get("birthDate"));
-                    verifyAge(birthDate);
-                    value = birthDate;
-                }
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, user, value);
+        if (expectedVersion != null && expectedVersion != user.getVersion()) {
+            throw new PreconditionFailedException("User " + id + " has changed since version " + expectedVersion);
+        }
+        return user;
+    }
+
+    /**
+     * Runs a write that the unique email index may reject. Duplicates are found by the write itself, which
+     * saves a lookup per write and leaves no gap for a concurrent insert between the check and the write.
+     * JPA writes have to be flushed here for the violation to surface.
+     */
+    private <T> T writeUnique(String email, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isDuplicateEmail(e)) {
+                throw new DuplicateEmailException("User with email " + email + " already exists");
             }
-        });
-        userRepository.save(user);
+            throw e;
+        }
     }
 
-    @Override
-    public List<UserDto> getUsersByBirthDateRange(LocalDate start, LocalDate end) {
-        if (start.isAfter(end)) {
-            throw new IncorrectDateRangeException("Start date should be before end date");
+    static boolean isDuplicateEmail(DataIntegrityViolationException exception) {
+        String message = NestedExceptionUtils.getMostSpecificCause(exception).getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT);
+    }
+
+    /**
+     * Tells why a single-statement write matched no row. Only failed writes pay for the extra query.
+     */
+    private RuntimeException missingOrChanged(Long id, Long expectedVersion) {
+        if (expectedVersion != null && userRepository.existsById(id)) {
+            return new PreconditionFailedException("User " + id + " has changed since version " + expectedVersion);
+        }
+        return new NotFoundException("No user with id " + id);
+    }
+
+    /**
+     * A user written moments ago may not have reached the replicas yet, and would go back into the cache stale.
+     */
+    private UserView loadView(Long id) {
+        return readRouting.readLatest(id, () -> userRepository.findViewById(id))
+                .orElseThrow(() -> new NotFoundException("No user with id " + id));
+    }
+
+    static List<UserDto> toDtos(List<UserView> users, boolean compact) {
+        List<UserDto> userDtos = new ArrayList<>(users.size());
+        if (compact) {
+            for (UserView user : users) {
+                userDtos.add(UserMapper.toDto(user));
+            }
+            return userDtos;
         }
-        List<User> users = userRepository.findByBirthDateBetween(start, end);
-        List<UserDto> userDtos = new ArrayList<>();
-        for (User user : users) {
-            UserDto userDto = modelMapper.map(user, UserDto.class);
-            Link view = linkTo(methodOn(UserController.class)
-                    .get(user.getId()))
-                    .withRel("view");
-            userDto.add(view);
+        UserLinks links = UserLinks.forCurrentRequest();
+        for (UserView user : users) {
+            UserDto userDto = UserMapper.toDto(user);
+            userDto.add(links.view(user.id()));
             userDtos.add(userDto);
         }
         return userDtos;
     }
 
-    private void verifyAge(LocalDate birthDate) {
+    @Override
+    public void verifyDateRange(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) {
+            throw new IncorrectDateRangeException("Start date should be before end date");
+        }
+    }
+
+    @Override
+    public void verifyAge(LocalDate birthDate) {
         Period difference = Period.between(birthDate, LocalDate.now());
         if (difference.getYears() < allowedAge) {
             throw new UserUnderAgeException("Users under " + allowedAge + " y.o. are not allowed");
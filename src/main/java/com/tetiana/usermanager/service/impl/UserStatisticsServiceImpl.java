@@ -0,0 +1,114 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.AgeGroupDto;
+import com.tetiana.usermanager.dto.BirthCountDto;
+import com.tetiana.usermanager.exception.StatisticsNotReadyException;
+import com.tetiana.usermanager.service.BirthPeriod;
+import com.tetiana.usermanager.service.UserStatisticsService;
+import com.tetiana.usermanager.statistics.BirthDateHistogram;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.Period;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes every aggregate from the in-memory birth date histogram, which is updated on each write, so a
+ * request walks the distinct birth dates instead of querying or loading users. Ages and birthdays depend
+ * on the current date and are worked out per request.
+ */
+@Service
+@RequiredArgsConstructor
+@Setter
+@PropertySource("classpath:custom.properties")
+public class UserStatisticsServiceImpl implements UserStatisticsService {
+    private static final int MAX_DAYS = 366;
+
+    private final UserStatistics userStatistics;
+    @Value("${allowed_age}")
+    private int allowedAge;
+
+    @Override
+    public List<AgeGroupDto> getAgeGroups(int width) {
+        int groupWidth = Math.max(1, width);
+        LocalDate today = LocalDate.now();
+        long underAge = 0;
+        List<Long> groups = new ArrayList<>();
+        for (Map.Entry<LocalDate, Long> count : counts().entrySet()) {
+            int age = Period.between(count.getKey(), today).getYears();
+            if (age < allowedAge) {
+                underAge += count.getValue();
+                continue;
+            }
+            int group = (age - allowedAge) / groupWidth;
+            while (groups.size() <= group) {
+                groups.add(0L);
+            }
+            groups.set(group, groups.get(group) + count.getValue());
+        }
+        List<AgeGroupDto> ageGroups = new ArrayList<>(groups.size() + 1);
+        if (allowedAge > 0) {
+            ageGroups.add(new AgeGroupDto(0, allowedAge - 1, underAge));
+        }
+        for (int i = 0; i < groups.size(); i++) {
+            int fromAge = allowedAge + i * groupWidth;
+            ageGroups.add(new AgeGroupDto(fromAge, fromAge + groupWidth - 1, groups.get(i)));
+        }
+        return ageGroups;
+    }
+
+    @Override
+    public List<BirthCountDto> getBirthCounts(BirthPeriod period) {
+        Map<String, Long> births = new LinkedHashMap<>();
+        counts().forEach((birthDate, users) -> births.merge(period.of(birthDate), users, Long::sum));
+        List<BirthCountDto> birthCounts = new ArrayList<>(births.size());
+        births.forEach((name, users) -> birthCounts.add(new BirthCountDto(name, users)));
+        return birthCounts;
+    }
+
+    @Override
+    public List<BirthCountDto> getUpcomingBirthdays(int days) {
+        int window = Math.max(1, Math.min(days, MAX_DAYS));
+        LocalDate today = LocalDate.now();
+        long[] birthdays = new long[window];
+        counts().forEach((birthDate, users) -> {
+            MonthDay monthDay = MonthDay.from(birthDate);
+            LocalDate next = monthDay.atYear(today.getYear());
+            if (next.isBefore(today)) {
+                next = monthDay.atYear(today.getYear() + 1);
+            }
+            long inDays = ChronoUnit.DAYS.between(today, next);
+            if (inDays < window) {
+                birthdays[(int) inDays] += users;
+            }
+        });
+        List<BirthCountDto> upcoming = new ArrayList<>(window);
+        for (int i = 0; i < window; i++) {
+            upcoming.add(new BirthCountDto(today.plusDays(i).toString(), birthdays[i]));
+        }
+        return upcoming;
+    }
+
+    /**
+     * Copies the counts out, so the aggregation does not hold up writers.
+     */
+    private Map<LocalDate, Long> counts() {
+        BirthDateHistogram histogram = userStatistics.histogram();
+        if (histogram == null) {
+            throw new StatisticsNotReadyException("User statistics are still loading");
+        }
+        Map<LocalDate, Long> counts = new LinkedHashMap<>();
+        histogram.forEach((birthDate, users) -> counts.put(birthDate, (long) users));
+        return counts;
+    }
+}
@@ -0,0 +1,41 @@
+package com.tetiana.usermanager.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Hands out user ids for buckets. An id is a count followed by its bucket, {@code count * BUCKETS + bucket},
+ * so it routes to whichever shard holds the bucket. Each bucket counts on its own in the {@code shard_bucket}
+ * table, from which counts are taken {@value #BLOCK} at a time, so ids stay unique wherever the bucket
+ * moves, and dense enough for the int ids of the search index.
+ */
+public class ShardIdGenerator {
+    private static final int BLOCK = 16;
+    private static final String TAKE = "UPDATE shard_bucket SET next_count = next_count + ? WHERE bucket = ?";
+    private static final String SELECT = "SELECT next_count FROM shard_bucket WHERE bucket = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long[] next = new long[ShardMap.BUCKETS];
+    private final long[] blockEnd = new long[ShardMap.BUCKETS];
+
+    public ShardIdGenerator(DataSource mainDataSource) {
+        this.jdbcTemplate = new JdbcTemplate(mainDataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(mainDataSource));
+    }
+
+    public synchronized long next(int bucket) {
+        if (next[bucket] == blockEnd[bucket]) {
+            long taken = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(TAKE, BLOCK, bucket);
+                return jdbcTemplate.queryForObject(SELECT, Long.class, bucket);
+            });
+            blockEnd[bucket] = taken;
+            next[bucket] = taken - BLOCK;
+        }
+        return next[bucket]++ * ShardMap.BUCKETS + bucket;
+    }
+}
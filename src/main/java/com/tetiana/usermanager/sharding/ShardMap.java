@@ -0,0 +1,177 @@
+package com.tetiana.usermanager.sharding;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Which shard holds which user. Ids fall into {@value #BUCKETS} buckets by their remainder, and each bucket
+ * lives on one shard. The assignment is kept in the {@code shard_bucket} table of the main database. When first
+ * created it is spread evenly, or, if the main database already holds users, gives every bucket to the main
+ * database, where those users are, for {@link ShardRebalancer} to spread. It changes only when a bucket moves.
+ * <p>
+ * Writes hold their bucket in place while they run, and a bucket is moved with its writes held off. Reads
+ * don't wait: they see the assignment as of their start, and a moved bucket's rows stay on the old shard
+ * until reads that may still go there have finished. Other instances only read the assignment when they
+ * start, so buckets are moved while a single instance serves writes.
+ */
+public class ShardMap {
+    public static final int BUCKETS = 1024;
+    private static final String SELECT = "SELECT bucket, shard FROM shard_bucket";
+    private static final String INSERT = "INSERT INTO shard_bucket (bucket, shard, next_count) VALUES (?, ?, ?)";
+    private static final String SELECT_NEXT_ID = "SELECT next_val FROM id_generator WHERE name = 'user'";
+    private static final String SELECT_ANY_USER = "SELECT id FROM user LIMIT 1";
+    private static final String UPDATE = "UPDATE shard_bucket SET shard = ? WHERE bucket = ?";
+    private static final long READER_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int shards;
+    private final ReadWriteLock[] bucketLocks = new ReadWriteLock[BUCKETS];
+    private volatile Assignment current;
+
+    public ShardMap(DataSource mainDataSource, int shards) {
+        this.jdbcTemplate = new JdbcTemplate(mainDataSource);
+        this.shards = shards;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            bucketLocks[bucket] = new ReentrantReadWriteLock();
+        }
+        this.current = new Assignment(load());
+    }
+
+    public static int bucketOf(long id) {
+        return (int) Math.floorMod(id, (long) BUCKETS);
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    public int shardOfBucket(int bucket) {
+        return current.owners[bucket];
+    }
+
+    /**
+     * Runs a read against the assignment as of now, given as the shard of each bucket.
+     */
+    public <T> T read(Function<int[], T> read) {
+        Assignment assignment;
+        while (true) {
+            assignment = current;
+            assignment.readers.incrementAndGet();
+            if (assignment == current) {
+                break;
+            }
+            // replaced in between, its mover may have stopped waiting already
+            assignment.readers.decrementAndGet();
+        }
+        try {
+            return read.apply(assignment.owners);
+        } finally {
+            assignment.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a write on the shard of the bucket, which does not move until the write returns.
+     */
+    public <T> T write(int bucket, IntFunction<T> write) {
+        Lock lock = bucketLocks[bucket].readLock();
+        lock.lock();
+        try {
+            return write.apply(current.owners[bucket]);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the lock that holds off writes to the bucket
+     */
+    Lock writesTo(int bucket) {
+        return bucketLocks[bucket].writeLock();
+    }
+
+    /**
+     * Moves the bucket to the shard, for the caller holding {@link #writesTo}, and waits for reads that may
+     * still go to the old shard.
+     */
+    void assign(int bucket, int shard) {
+        jdbcTemplate.update(UPDATE, shard, bucket);
+        int[] owners = current.owners.clone();
+        owners[bucket] = shard;
+        Assignment previous = current;
+        current = new Assignment(owners);
+        while (previous.readers.get() > 0) {
+            LockSupport.parkNanos(READER_WAIT);
+        }
+    }
+
+    private int[] load() {
+        int[] owners = new int[BUCKETS];
+        Arrays.fill(owners, -1);
+        jdbcTemplate.query(SELECT, resultSet -> {
+            owners[resultSet.getInt(1)] = resultSet.getInt(2);
+        });
+        if (owners[0] < 0) {
+            boolean existingUsers = !jdbcTemplate.queryForList(SELECT_ANY_USER, Long.class).isEmpty();
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                owners[bucket] = existingUsers ? 0 : bucket % shards;
+            }
+            try {
+                insertAll(owners);
+            } catch (DuplicateKeyException e) {
+                // another instance got there first
+                return load();
+            }
+        }
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            if (owners[bucket] < 0 || owners[bucket] >= shards) {
+                throw new IllegalStateException("Bucket " + bucket + " is on shard " + owners[bucket] + ", but "
+                        + shards + " shards are configured");
+            }
+        }
+        return owners;
+    }
+
+    /**
+     * Buckets start counting ids above those made before sharding, see {@link ShardIdGenerator}.
+     */
+    private void insertAll(int[] owners) {
+        long firstCount = jdbcTemplate.queryForObject(SELECT_NEXT_ID, Long.class) / BUCKETS + 1;
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int bucket) throws SQLException {
+                statement.setInt(1, bucket);
+                statement.setInt(2, owners[bucket]);
+                statement.setLong(3, firstCount);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return BUCKETS;
+            }
+        });
+    }
+
+    private static final class Assignment {
+        private final int[] owners;
+        private final AtomicInteger readers = new AtomicInteger();
+
+        private Assignment(int[] owners) {
+            this.owners = owners;
+        }
+    }
+}
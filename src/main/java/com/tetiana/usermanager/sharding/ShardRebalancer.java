@@ -0,0 +1,168 @@
+package com.tetiana.usermanager.sharding;
+
+import com.tetiana.usermanager.dto.RebalanceResultDto;
+import com.tetiana.usermanager.dto.UserView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Moves buckets between shards while users are read and written, for instance onto a shard just added.
+ * A bucket's rows are first copied as they are, next to any users of the bucket the target already holds. Then writes to the bucket are held off while the rows
+ * changed meanwhile are copied again and the bucket is reassigned, and the old shard's rows are deleted
+ * once no read can reach them. Moves run one at a time.
+ */
+@Slf4j
+public class ShardRebalancer {
+    private static final String BUCKET = " WHERE MOD(id, " + ShardMap.BUCKETS + ") = ?";
+    private static final String SELECT_BUCKET = "SELECT id, email, first_name, last_name, birth_date, address, "
+            + "phone_number, version FROM user" + BUCKET;
+    private static final String SELECT_VERSIONS = "SELECT id, version FROM user" + BUCKET;
+    private static final String SELECT_EMAILS = "SELECT id, email FROM user" + BUCKET;
+    private static final String SELECT_CLAIM = "SELECT COUNT(*) FROM user_email WHERE email = ? AND user_id = ?";
+    private static final String SELECT_BY_ID = "SELECT id, email, first_name, last_name, birth_date, address, "
+            + "phone_number, version FROM user WHERE id = ?";
+    private static final String INSERT = "INSERT INTO user (id, email, first_name, last_name, birth_date, "
+            + "address, phone_number, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM user WHERE id = ?";
+    private static final String DELETE_BUCKET = "DELETE FROM user" + BUCKET;
+    private static final int MAIN = 0;
+    private static final int BATCH_SIZE = 500;
+
+    private final ShardedUserStore store;
+    private final ShardMap shardMap;
+
+    public ShardRebalancer(ShardedUserStore store, ShardMap shardMap) {
+        this.store = store;
+        this.shardMap = shardMap;
+    }
+
+    /**
+     * Spreads the buckets evenly over the shards, moving as few as possible.
+     */
+    public synchronized RebalanceResultDto rebalance() {
+        int shards = shardMap.shards();
+        int[] counts = new int[shards];
+        for (int bucket = 0; bucket < ShardMap.BUCKETS; bucket++) {
+            counts[shardMap.shardOfBucket(bucket)]++;
+        }
+        int[] quotas = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            quotas[shard] = ShardMap.BUCKETS / shards + (shard < ShardMap.BUCKETS % shards ? 1 : 0);
+        }
+        RebalanceResultDto result = new RebalanceResultDto(0, 0);
+        for (int bucket = 0; bucket < ShardMap.BUCKETS; bucket++) {
+            int source = shardMap.shardOfBucket(bucket);
+            if (counts[source] <= quotas[source]) {
+                continue;
+            }
+            int target = 0;
+            while (counts[target] >= quotas[target]) {
+                target++;
+            }
+            result.setUsersMoved(result.getUsersMoved() + move(bucket, target));
+            result.setBucketsMoved(result.getBucketsMoved() + 1);
+            counts[source]--;
+            counts[target]++;
+        }
+        log.info("Rebalanced {} buckets with {} users", result.getBucketsMoved(), result.getUsersMoved());
+        return result;
+    }
+
+    /**
+     * @return the number of users moved
+     */
+    public synchronized int move(int bucket, int target) {
+        int source = shardMap.shardOfBucket(bucket);
+        if (source == target) {
+            return 0;
+        }
+        JdbcTemplate from = store.shard(source);
+        JdbcTemplate to = store.shard(target);
+        List<UserView> copy = from.query(SELECT_BUCKET, ShardedUserStore::toView, bucket);
+        Set<Long> copiedIds = new HashSet<>();
+        copy.forEach(user -> copiedIds.add(user.id()));
+        delete(to, leftovers(to, bucket, copiedIds));
+        insert(to, copy);
+        int moved;
+        Lock writes = shardMap.writesTo(bucket);
+        writes.lock();
+        try {
+            Map<Long, Long> copied = versions(to, bucket);
+            // the target's own users of the bucket stay as they are
+            copied.keySet().retainAll(copiedIds);
+            Map<Long, Long> current = versions(from, bucket);
+            List<Long> stale = new ArrayList<>();
+            copied.forEach((id, version) -> {
+                if (!version.equals(current.get(id))) {
+                    stale.add(id);
+                }
+            });
+            delete(to, stale);
+            List<UserView> changed = new ArrayList<>();
+            current.forEach((id, version) -> {
+                if (!version.equals(copied.get(id))) {
+                    changed.add(from.queryForObject(SELECT_BY_ID, ShardedUserStore::toView, id));
+                }
+            });
+            insert(to, changed);
+            moved = current.size();
+            shardMap.assign(bucket, target);
+        } finally {
+            writes.unlock();
+        }
+        from.update(DELETE_BUCKET, bucket);
+        log.debug("Moved bucket {} with {} users from shard {} to {}", bucket, moved, source, target);
+        return moved;
+    }
+
+    /**
+     * Finds the bucket's rows on the target that a failed move left behind: copies of users still on the source,
+     * and of users deleted since, whose emails are no longer claimed. Other rows are users the target already
+     * held, like those made on the main database before sharding, and are kept.
+     */
+    private List<Long> leftovers(JdbcTemplate target, int bucket, Set<Long> sourceIds) {
+        JdbcTemplate main = store.shard(MAIN);
+        List<Long> leftovers = new ArrayList<>();
+        target.query(SELECT_EMAILS, resultSet -> {
+            long id = resultSet.getLong(1);
+            if (sourceIds.contains(id)
+                    || main.queryForObject(SELECT_CLAIM, Integer.class, resultSet.getString(2), id) == 0) {
+                leftovers.add(id);
+            }
+        }, bucket);
+        return leftovers;
+    }
+
+    private static Map<Long, Long> versions(JdbcTemplate jdbcTemplate, int bucket) {
+        Map<Long, Long> versions = new HashMap<>();
+        jdbcTemplate.query(SELECT_VERSIONS, resultSet -> {
+            versions.put(resultSet.getLong(1), resultSet.getLong(2));
+        }, bucket);
+        return versions;
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, List<UserView> users) {
+        jdbcTemplate.batchUpdate(INSERT, users, BATCH_SIZE, (statement, user) -> {
+            statement.setLong(1, user.id());
+            statement.setString(2, user.email());
+            statement.setString(3, user.firstName());
+            statement.setString(4, user.lastName());
+            statement.setObject(5, user.birthDate());
+            statement.setString(6, user.address());
+            statement.setString(7, user.phoneNumber());
+            statement.setLong(8, user.version());
+        });
+    }
+
+    private static void delete(JdbcTemplate jdbcTemplate, List<Long> ids) {
+        jdbcTemplate.batchUpdate(DELETE, ids, BATCH_SIZE, (statement, id) -> statement.setLong(1, id));
+    }
+}
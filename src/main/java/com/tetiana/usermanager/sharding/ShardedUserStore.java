@@ -0,0 +1,387 @@
+package com.tetiana.usermanager.sharding;
+
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.entity.User;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The user table split over several databases by {@link ShardMap}. Reads and writes of one user go to its
+ * shard. Queries by birth date run on every shard at once, each returning its rows in order, and the results
+ * are merged; rows a shard holds for buckets it doesn't own, left over or copied in by a move, are skipped.
+ * <p>
+ * The unique index of a shard only sees that shard, so an email is claimed in the {@code user_email} table
+ * of the main database before a user takes it and given up afterwards. That spans two databases: a claim
+ * left behind by a failed write is taken over by the next user asking for the email.
+ */
+public class ShardedUserStore implements AutoCloseable {
+    public static final Comparator<UserView> BIRTH_DATE_ID = Comparator.comparing(UserView::birthDate)
+            .thenComparing(UserView::id);
+    private static final String SELECT_USERS = "SELECT id, email, first_name, last_name, birth_date, address, "
+            + "phone_number, version FROM user";
+    private static final String BY_BIRTH_DATE = " WHERE birth_date BETWEEN ? AND ?";
+    private static final String ORDER_BY_BIRTH_DATE = " ORDER BY birth_date, id";
+    private static final String INSERT = "INSERT INTO user (id, email, first_name, last_name, birth_date, "
+            + "address, phone_number, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE = "UPDATE user SET email = ?, first_name = ?, last_name = ?, "
+            + "birth_date = ?, address = ?, phone_number = ?, version = version + 1 WHERE id = ?";
+    private static final String DELETE = "DELETE FROM user WHERE id = ?";
+    private static final String AT_VERSION = " AND version = ?";
+    private static final String CLAIM = "INSERT INTO user_email (email, user_id) VALUES (?, ?)";
+    private static final String SELECT_CLAIM = "SELECT user_id FROM user_email WHERE email = ?";
+    private static final String TAKE_OVER_CLAIM = "UPDATE user_email SET user_id = ? WHERE email = ? AND user_id = ?";
+    private static final String RELEASE = "DELETE FROM user_email WHERE email = ? AND user_id = ?";
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final List<JdbcTemplate> shards;
+    private final List<JdbcTemplate> streamingShards;
+    private final ShardIdGenerator idGenerator;
+    private final JdbcTemplate main;
+    private final ShardMap shardMap;
+    private final ExecutorService executor;
+    private final AtomicInteger nextBucket = new AtomicInteger();
+
+    /**
+     * @param shardDataSources the shards in order, starting with the main database
+     * @param queryThreads     threads running queries on several shards at once
+     */
+    public ShardedUserStore(List<DataSource> shardDataSources, ShardMap shardMap, int queryThreads) {
+        this.shards = new ArrayList<>();
+        this.streamingShards = new ArrayList<>();
+        for (DataSource dataSource : shardDataSources) {
+            shards.add(new JdbcTemplate(dataSource));
+            JdbcTemplate streaming = new JdbcTemplate(dataSource);
+            streaming.setFetchSize(STREAM_FETCH_SIZE);
+            streamingShards.add(streaming);
+        }
+        this.main = shards.get(0);
+        this.idGenerator = new ShardIdGenerator(shardDataSources.get(0));
+        this.shardMap = shardMap;
+        this.executor = Executors.newFixedThreadPool(queryThreads, task -> {
+            Thread thread = new Thread(task, "shard-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    JdbcTemplate shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public Optional<UserView> findViewById(long id) {
+        int bucket = ShardMap.bucketOf(id);
+        return shardMap.read(owners -> shards.get(owners[bucket])
+                .query(SELECT_USERS + " WHERE id = ?", ShardedUserStore::toView, id).stream().findFirst());
+    }
+
+    public Optional<User> findById(long id) {
+        return findViewById(id).map(ShardedUserStore::toUser);
+    }
+
+    public List<UserView> findViewsByIdIn(Collection<Long> ids) {
+        return shardMap.read(owners -> {
+            Map<Integer, List<Long>> byShard = new HashMap<>();
+            for (Long id : ids) {
+                byShard.computeIfAbsent(owners[ShardMap.bucketOf(id)], shard -> new ArrayList<>()).add(id);
+            }
+            List<CompletableFuture<List<UserView>>> parts = new ArrayList<>();
+            byShard.forEach((shard, shardIds) -> parts.add(CompletableFuture.supplyAsync(() ->
+                    shards.get(shard).query(SELECT_USERS + " WHERE id IN ("
+                                    + String.join(", ", shardIds.stream().map(id -> "?").toList()) + ")",
+                            ShardedUserStore::toView, shardIds.toArray()), executor)));
+            List<UserView> users = new ArrayList<>(ids.size());
+            parts.forEach(part -> users.addAll(join(part)));
+            return users;
+        });
+    }
+
+    public Optional<UserView> findViewByEmail(String email) {
+        return main.queryForList(SELECT_CLAIM, Long.class, email).stream()
+                .flatMap(id -> findViewById(id).stream())
+                .filter(user -> user.email().equals(email))
+                .findFirst();
+    }
+
+    public List<UserView> findViewsByPhoneNumber(String phoneNumber) {
+        List<UserView> users = new ArrayList<>();
+        scatter(shard -> shard.query(SELECT_USERS + " WHERE phone_number = ?", ShardedUserStore::toView,
+                phoneNumber)).forEach(users::addAll);
+        users.sort(Comparator.comparing(UserView::id));
+        return users;
+    }
+
+    public List<UserView> findViewsByBirthDateBetween(LocalDate start, LocalDate end) {
+        return merge(scatter(shard -> shard.query(SELECT_USERS + BY_BIRTH_DATE + ORDER_BY_BIRTH_DATE,
+                ShardedUserStore::toView, start, end)), Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the first {@code limit} users in the range after the given user, or from the start when
+     * {@code afterDate} is null
+     */
+    public List<UserView> findViewsByBirthDateBetweenAfter(LocalDate start, LocalDate end, LocalDate afterDate,
+                                                           Long afterId, int limit) {
+        if (afterDate == null) {
+            return merge(scatter(shard -> shard.query(SELECT_USERS + BY_BIRTH_DATE + ORDER_BY_BIRTH_DATE
+                    + " LIMIT ?", ShardedUserStore::toView, start, end, limit)), limit);
+        }
+        return merge(scatter(shard -> shard.query(SELECT_USERS + BY_BIRTH_DATE
+                        + " AND (birth_date > ? OR (birth_date = ? AND id > ?))" + ORDER_BY_BIRTH_DATE + " LIMIT ?",
+                ShardedUserStore::toView, start, end, afterDate, afterDate, afterId, limit)), limit);
+    }
+
+    /**
+     * Streams the range in order with a cursor open on every shard, so it never holds more than a fetch per
+     * shard. The queries start one after the other.
+     */
+    public void streamViewsByBirthDateBetween(LocalDate start, LocalDate end, Consumer<UserView> consumer) {
+        shardMap.read(owners -> {
+            List<Stream<UserView>> streams = new ArrayList<>();
+            try {
+                List<Iterator<UserView>> parts = new ArrayList<>();
+                for (int shard = 0; shard < streamingShards.size(); shard++) {
+                    int owner = shard;
+                    Stream<UserView> stream = streamingShards.get(shard).queryForStream(SELECT_USERS + BY_BIRTH_DATE
+                            + ORDER_BY_BIRTH_DATE, ShardedUserStore::toView, start, end);
+                    streams.add(stream);
+                    parts.add(stream.filter(user -> owners[ShardMap.bucketOf(user.id())] == owner).iterator());
+                }
+                mergeInto(parts, Integer.MAX_VALUE, consumer);
+            } finally {
+                streams.forEach(Stream::close);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs the query on one shard after another, passing on the rows of the buckets each shard owns. The query
+     * reads the user table and selects the id first. Buckets don't move until it returns.
+     */
+    public void queryAll(String sql, RowCallbackHandler handler) {
+        shardMap.read(owners -> {
+            for (int shard = 0; shard < streamingShards.size(); shard++) {
+                int owner = shard;
+                streamingShards.get(shard).query(sql, resultSet -> {
+                    if (owners[ShardMap.bucketOf(resultSet.getLong(1))] == owner) {
+                        handler.processRow(resultSet);
+                    }
+                });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Inserts the user, giving it an id.
+     *
+     * @throws DuplicateKeyException when the email is taken
+     */
+    public void insert(User user) {
+        int bucket = Math.floorMod(nextBucket.getAndIncrement(), ShardMap.BUCKETS);
+        shardMap.write(bucket, shard -> {
+            user.setId(idGenerator.next(bucket));
+            claim(user.getEmail(), user.getId());
+            try {
+                shards.get(shard).update(INSERT, user.getId(), user.getEmail(), user.getFirstName(),
+                        user.getLastName(), user.getBirthDate(), user.getAddress(), user.getPhoneNumber(), 0L);
+            } catch (RuntimeException e) {
+                release(user.getEmail(), user.getId());
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Overwrites the user, like {@code UserRepository.updateByIdAtVersion}.
+     *
+     * @return 1, or 0 when the user is missing or at another version
+     * @throws DuplicateKeyException when the new email is taken
+     */
+    public int updateByIdAtVersion(long id, String email, String firstName, String lastName, LocalDate birthDate,
+                                   String address, String phoneNumber, Long version) {
+        return shardMap.write(ShardMap.bucketOf(id), shard -> {
+            JdbcTemplate jdbcTemplate = shards.get(shard);
+            Optional<UserView> current = jdbcTemplate.query(SELECT_USERS + " WHERE id = ?",
+                    ShardedUserStore::toView, id).stream().findFirst();
+            if (current.isEmpty()) {
+                return 0;
+            }
+            String previousEmail = current.get().email();
+            boolean emailChanged = !previousEmail.equals(email);
+            if (emailChanged) {
+                claim(email, id);
+            }
+            int updated;
+            try {
+                updated = version == null
+                        ? jdbcTemplate.update(UPDATE, email, firstName, lastName, birthDate, address, phoneNumber, id)
+                        : jdbcTemplate.update(UPDATE + AT_VERSION, email, firstName, lastName, birthDate, address,
+                        phoneNumber, id, version);
+            } catch (RuntimeException e) {
+                if (emailChanged) {
+                    release(email, id);
+                }
+                throw e;
+            }
+            if (emailChanged) {
+                release(updated == 0 ? email : previousEmail, id);
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * @return 1, or 0 when the user is missing or at another version
+     */
+    public int deleteByIdAtVersion(long id, Long version) {
+        return shardMap.write(ShardMap.bucketOf(id), shard -> {
+            JdbcTemplate jdbcTemplate = shards.get(shard);
+            Optional<UserView> current = jdbcTemplate.query(SELECT_USERS + " WHERE id = ?",
+                    ShardedUserStore::toView, id).stream().findFirst();
+            int deleted = version == null
+                    ? jdbcTemplate.update(DELETE, id)
+                    : jdbcTemplate.update(DELETE + AT_VERSION, id, version);
+            if (deleted > 0) {
+                release(current.get().email(), id);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Claims the email for the user, taking it over if its claim was left behind by a write that failed.
+     */
+    private void claim(String email, long id) {
+        try {
+            main.update(CLAIM, email, id);
+            return;
+        } catch (DuplicateKeyException e) {
+            // checked below
+        }
+        Long claimedBy = main.queryForList(SELECT_CLAIM, Long.class, email).stream().findFirst().orElse(null);
+        if (claimedBy == null) {
+            claim(email, id);
+            return;
+        }
+        boolean taken = claimedBy == id || findViewById(claimedBy).filter(user -> user.email().equals(email))
+                .isPresent();
+        if (taken || main.update(TAKE_OVER_CLAIM, id, email, claimedBy) == 0) {
+            throw new DuplicateKeyException("Email " + email + " is taken (" + User.EMAIL_CONSTRAINT + ")");
+        }
+    }
+
+    private void release(String email, long id) {
+        main.update(RELEASE, email, id);
+    }
+
+    /**
+     * Runs the query on every shard at once, keeping the rows of the buckets each shard owns.
+     */
+    private List<List<UserView>> scatter(Function<JdbcTemplate, List<UserView>> query) {
+        return shardMap.read(owners -> {
+            List<CompletableFuture<List<UserView>>> parts = new ArrayList<>(shards.size());
+            for (int shard = 0; shard < shards.size(); shard++) {
+                int owner = shard;
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    List<UserView> users = query.apply(shards.get(owner));
+                    users.removeIf(user -> owners[ShardMap.bucketOf(user.id())] != owner);
+                    return users;
+                }, executor));
+            }
+            return parts.stream().map(ShardedUserStore::join).toList();
+        });
+    }
+
+    /**
+     * k-way merge of lists each ordered by birth date and id.
+     */
+    static List<UserView> merge(List<List<UserView>> parts, int limit) {
+        List<UserView> merged = new ArrayList<>();
+        mergeInto(parts.stream().map(List::iterator).toList(), limit, merged::add);
+        return merged;
+    }
+
+    private static void mergeInto(List<Iterator<UserView>> parts, int limit, Consumer<UserView> consumer) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(Math.max(1, parts.size()),
+                (a, b) -> BIRTH_DATE_ID.compare(a.user, b.user));
+        for (Iterator<UserView> part : parts) {
+            if (part.hasNext()) {
+                heads.add(new Head(part.next(), part));
+            }
+        }
+        for (int taken = 0; taken < limit && !heads.isEmpty(); taken++) {
+            Head head = heads.poll();
+            consumer.accept(head.user);
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    static UserView toView(ResultSet resultSet, int row) throws SQLException {
+        return new UserView(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4), resultSet.getObject(5, LocalDate.class), resultSet.getString(6),
+                resultSet.getString(7), resultSet.getLong(8));
+    }
+
+    private static User toUser(UserView view) {
+        User user = new User();
+        user.setId(view.id());
+        user.setEmail(view.email());
+        user.setFirstName(view.firstName());
+        user.setLastName(view.lastName());
+        user.setBirthDate(view.birthDate());
+        user.setAddress(view.address());
+        user.setPhoneNumber(view.phoneNumber());
+        user.setVersion(view.version());
+        return user;
+    }
+
+    private record Head(UserView user, Iterator<UserView> rest) {
+    }
+}
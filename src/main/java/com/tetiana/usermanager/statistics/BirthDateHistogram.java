@@ -0,0 +1,88 @@
+package com.tetiana.usermanager.statistics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Number of users per birth date, with each user's birth date in a column indexed by id so that a change
+ * or removal knows which count to move without asking the database. The column takes four bytes per id
+ * up to the highest one; the counts take an entry per distinct birth date, a few tens of thousands at most.
+ * Ids have to fit in an {@code int}.
+ */
+public final class BirthDateHistogram {
+    private static final int ABSENT = Integer.MIN_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Integer, Integer> counts = new TreeMap<>();
+    private int[] birthDays = new int[0];
+    private int users;
+
+    public void put(long id, LocalDate birthDate) {
+        int index = Math.toIntExact(id);
+        int birthDay = Math.toIntExact(birthDate.toEpochDay());
+        lock.writeLock().lock();
+        try {
+            if (index >= birthDays.length) {
+                int length = birthDays.length;
+                birthDays = Arrays.copyOf(birthDays, Math.max(index + 1, length + (length >> 1)));
+                Arrays.fill(birthDays, length, birthDays.length, ABSENT);
+            }
+            if (birthDays[index] == ABSENT) {
+                users++;
+            } else {
+                decrement(birthDays[index]);
+            }
+            birthDays[index] = birthDay;
+            counts.merge(birthDay, 1, Integer::sum);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        int index = Math.toIntExact(id);
+        lock.writeLock().lock();
+        try {
+            if (index < birthDays.length && birthDays[index] != ABSENT) {
+                decrement(birthDays[index]);
+                birthDays[index] = ABSENT;
+                users--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return users;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes every birth date with its number of users, earliest first, under the read lock.
+     */
+    public void forEach(ObjIntConsumer<LocalDate> consumer) {
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+                consumer.accept(LocalDate.ofEpochDay(count.getKey()), count.getValue());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void decrement(int birthDay) {
+        counts.computeIfPresent(birthDay, (day, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -0,0 +1,99 @@
+package com.tetiana.usermanager.statistics;
+
+import com.tetiana.usermanager.cache.DerivedState;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.sharding.ShardedUserStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a {@link BirthDateHistogram} of all users in step with the database, as a {@link DerivedState}
+ * loaded once the application is ready. Reading only ids and birth dates, the load never builds entities.
+ * Only writes made through this instance are seen after the load. In the {@code sharded} profile the users are
+ * read from every shard.
+ */
+@Component
+@PropertySource("classpath:custom.properties")
+public class UserStatistics {
+    private static final String SELECT_ALL = "SELECT id, birth_date FROM user";
+
+    private final JdbcTemplate jdbcTemplate;
+    private ShardedUserStore shardedUserStore;
+    private final DerivedState<BirthDateHistogram> histogram =
+            new DerivedState<>("user statistics", new BirthDateHistogram());
+
+    public UserStatistics(DataSource dataSource, @Value("${export_fetch_size}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Autowired(required = false)
+    public void setShardedUserStore(ShardedUserStore shardedUserStore) {
+        this.shardedUserStore = shardedUserStore;
+    }
+
+    /**
+     * @return the histogram, or null until it has been loaded
+     */
+    public BirthDateHistogram histogram() {
+        return histogram.isLoaded() ? histogram.get() : null;
+    }
+
+    public void put(Long id, LocalDate birthDate) {
+        histogram.afterCommit(target -> target.put(id, birthDate));
+    }
+
+    public void putAll(Collection<User> users) {
+        List<Consumer<BirthDateHistogram>> puts = new ArrayList<>(users.size());
+        for (User user : users) {
+            Long id = user.getId();
+            LocalDate birthDate = user.getBirthDate();
+            puts.add(target -> target.put(id, birthDate));
+        }
+        histogram.afterCommit(target -> puts.forEach(put -> put.accept(target)));
+    }
+
+    public void remove(Long id) {
+        histogram.afterCommit(target -> target.remove(id));
+    }
+
+    public void removeAll(Collection<Long> ids) {
+        List<Long> removed = List.copyOf(ids);
+        histogram.afterCommit(target -> removed.forEach(target::remove));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        histogram.load(() -> {
+            BirthDateHistogram loading = new BirthDateHistogram();
+            RowCallbackHandler put = resultSet -> {
+                loading.put(resultSet.getLong(1), resultSet.getObject(2, LocalDate.class));
+            };
+            if (shardedUserStore != null) {
+                shardedUserStore.queryAll(SELECT_ALL, put);
+            } else {
+                jdbcTemplate.query(SELECT_ALL, put);
+            }
+            return loading;
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        histogram.close();
+    }
+}
@@ -0,0 +1 @@
+CREATE INDEX idx_user_birth_date_id ON user (birth_date, id);
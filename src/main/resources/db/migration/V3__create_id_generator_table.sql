@@ -0,0 +1,10 @@
+CREATE TABLE id_generator
+(
+    name     VARCHAR(64) NOT NULL,
+    next_val BIGINT      NOT NULL,
+    PRIMARY KEY (name)
+);
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'user', COALESCE(MAX(id), 0) + 1
+FROM user;
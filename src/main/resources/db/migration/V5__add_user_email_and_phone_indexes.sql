@@ -0,0 +1,3 @@
+UPDATE user SET email = LOWER(email);
+CREATE UNIQUE INDEX uk_user_email ON user (email);
+CREATE INDEX idx_user_phone_number ON user (phone_number);
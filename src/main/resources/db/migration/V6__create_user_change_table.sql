@@ -0,0 +1,11 @@
+CREATE TABLE user_change
+(
+    id         BIGINT      NOT NULL AUTO_INCREMENT,
+    position   BIGINT,
+    user_id    BIGINT      NOT NULL,
+    type       VARCHAR(16) NOT NULL,
+    changed_at DATETIME(3) NOT NULL,
+    PRIMARY KEY (id)
+);
+CREATE UNIQUE INDEX uk_user_change_position ON user_change (position);
+CREATE INDEX idx_user_change_changed_at ON user_change (changed_at);
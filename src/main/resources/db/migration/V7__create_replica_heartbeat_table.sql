@@ -0,0 +1,7 @@
+CREATE TABLE replica_heartbeat
+(
+    id      INT         NOT NULL,
+    beat_at DATETIME(3) NOT NULL,
+    PRIMARY KEY (id)
+);
+INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, CURRENT_TIMESTAMP);
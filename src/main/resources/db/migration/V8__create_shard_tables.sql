@@ -0,0 +1,17 @@
+CREATE TABLE shard_bucket
+(
+    bucket     INT    NOT NULL,
+    shard      INT    NOT NULL,
+    next_count BIGINT NOT NULL,
+    PRIMARY KEY (bucket)
+);
+CREATE TABLE user_email
+(
+    email   VARCHAR(255) NOT NULL,
+    user_id BIGINT       NOT NULL,
+    PRIMARY KEY (email)
+);
+-- users made before sharding keep their emails
+INSERT INTO user_email (email, user_id)
+SELECT email, id
+FROM user;
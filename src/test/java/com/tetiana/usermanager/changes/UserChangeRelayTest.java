@@ -0,0 +1,113 @@
+package com.tetiana.usermanager.changes;
+
+import com.tetiana.usermanager.dto.BatchResultDto;
+import com.tetiana.usermanager.dto.UserChangeDto;
+import com.tetiana.usermanager.dto.UserChangePageDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserBatchService;
+import com.tetiana.usermanager.service.UserChangeService;
+import com.tetiana.usermanager.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@SpringBootTest
+public class UserChangeRelayTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserChangeService userChangeService;
+
+    @Autowired
+    private UserChangeRelay userChangeRelay;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private long since;
+
+    @BeforeEach
+    public void setUp() {
+        // publishes what earlier tests left, the relay's thread may be doing the same
+        while (userChangeRelay.relay() > 0) {
+            since = userChangeRelay.latest();
+        }
+        since = userChangeRelay.latest();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testWritesArePublishedInOrder() {
+        userService.create(createUserDto("changes@gamil.com"));
+        Long id = userService.getUsersByEmail("changes@gamil.com", true).get(0).getId();
+        userService.update(id, createUserDto("changed@gamil.com"), null);
+        userService.partialUpdate(id, Map.of("address", "Lviv, Ukraine"), null);
+        userService.delete(id, null);
+        userChangeRelay.relay();
+
+        List<UserChangeDto> changes = userChangeRelay.read(since, 10);
+
+        assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.UPDATED, ChangeType.DELETED),
+                changes.stream().map(UserChangeDto::getType).toList());
+        assertEquals(LongStream.rangeClosed(since + 1, since + 4).boxed().toList(),
+                changes.stream().map(UserChangeDto::getPosition).toList());
+        changes.forEach(change -> assertEquals(id, change.getUserId()));
+        assertEquals(changes.subList(2, 4), userChangeRelay.read(since + 2, 10));
+    }
+
+    @Test
+    public void testRolledBackWritesAreNotPublished() {
+        BatchResultDto result = userBatchService.createAll(List.of(createUserDto("twice@gamil.com"),
+                createUserDto("twice@gamil.com")));
+        userChangeRelay.relay();
+
+        // the chunk is rolled back, and then only the first user is written again
+        assertEquals(1, result.getSucceeded());
+        Long id = userService.getUsersByEmail("twice@gamil.com", true).get(0).getId();
+        List<UserChangeDto> changes = userChangeRelay.read(since, 10);
+        assertEquals(1, changes.size());
+        assertEquals(id, changes.get(0).getUserId());
+    }
+
+    @Test
+    public void testLongPollCompletesWhenAChangeIsPublished() throws Exception {
+        CompletableFuture<UserChangePageDto> page = userChangeService.getChanges(since, 10, Duration.ofSeconds(20));
+        assertFalse(page.isDone());
+
+        userService.create(createUserDto("waited@gamil.com"));
+        userChangeRelay.relay();
+
+        UserChangePageDto changes = page.get(10, TimeUnit.SECONDS);
+        assertEquals(1, changes.getChanges().size());
+        assertEquals(ChangeType.CREATED, changes.getChanges().get(0).getType());
+        assertEquals(since + 1, changes.getNext());
+    }
+
+    private UserDto createUserDto(String email) {
+        return new UserDto(null, email, "Changes", "Test", LocalDate.of(1980, 1, 1), "Kyiv, Ukraine",
+                "0123456789");
+    }
+}
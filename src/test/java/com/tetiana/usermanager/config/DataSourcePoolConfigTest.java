@@ -0,0 +1,25 @@
+package com.tetiana.usermanager.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DataSourcePoolConfigTest {
+
+    @Test
+    public void testPoolSizeFollowsDatabaseCoresWithinTheConnectionLimit() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("db_pool_size", "")
+                .withProperty("db_cores", "8")
+                .withProperty("db_max_connections", "151")
+                .withProperty("db_app_instances", "1");
+        assertEquals(17, DataSourcePoolConfig.poolSize(environment));
+
+        environment.setProperty("db_app_instances", "20");
+        assertEquals(7, DataSourcePoolConfig.poolSize(environment));
+
+        environment.setProperty("db_pool_size", "40");
+        assertEquals(40, DataSourcePoolConfig.poolSize(environment));
+    }
+}
@@ -0,0 +1,72 @@
+package com.tetiana.usermanager.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.filter.ConcurrencyLimitFilter;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The concurrency limit of the virtual thread mode, which itself needs Java 21, built by the config class.
+ */
+@SpringBootTest
+public class VirtualThreadConfigTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testChangeSubscribersTakeNoPermits() throws Exception {
+        ConcurrencyLimitFilter filter = new VirtualThreadConfig()
+                .concurrencyLimitFilter(dataSource, objectMapper, Duration.ofMillis(100))
+                .getFilter();
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilter(filter, "/users/*")
+                .build();
+        userService.create(new UserDto(null, "limited@gamil.com", "Limit", "Test", LocalDate.of(1980, 1, 1),
+                "Kyiv, Ukraine", "0123456789"));
+        Long id = userService.getUsersByEmail("limited@gamil.com", true).get(0).getId();
+
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        for (int i = 0; i < poolSize; i++) {
+            mockMvc.perform(get("/users/changes/stream"))
+                    .andExpect(request().asyncStarted());
+        }
+
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,194 @@
+package com.tetiana.usermanager.controller;
+
+import com.tetiana.usermanager.dto.UserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class ReactiveUserControllerTest {
+    private static final LocalDate BIRTH_DATE = LocalDate.of(1961, 3, 14);
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void createdUserCanBeReadUpdatedAndDeleted() {
+        String email = "reactive.crud@gmail.com";
+        create(email, BIRTH_DATE);
+        Long id = findByEmail(email).getId();
+
+        client.get().uri("/users/{id}", id).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.email").isEqualTo(email)
+                .jsonPath("$.birthDate").isEqualTo(BIRTH_DATE.toString());
+
+        client.patch().uri("/users/{id}", id)
+                .bodyValue(Map.of("address", "Kyiv"))
+                .exchange()
+                .expectStatus().isOk();
+        client.put().uri("/users/{id}", id)
+                .bodyValue(new UserDto(null, email, "Ann", "Smith", BIRTH_DATE, "Lviv", null))
+                .exchange()
+                .expectStatus().isOk();
+        client.get().uri("/users/{id}", id).exchange()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo("Ann")
+                .jsonPath("$.address").isEqualTo("Lviv");
+
+        client.delete().uri("/users/{id}", id).exchange()
+                .expectStatus().isOk();
+        assertThat(databaseClient.sql("SELECT type FROM user_change WHERE user_id = :id ORDER BY id")
+                .bind("id", id)
+                .map(row -> row.get("type", String.class))
+                .all()
+                .collectList()
+                .block())
+                .containsExactly("CREATED", "UPDATED", "UPDATED", "DELETED");
+        client.get().uri("/users/{id}", id).exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.statusCode").isEqualTo(404)
+                .jsonPath("$.path").isEqualTo("/users/" + id);
+    }
+
+    @Test
+    void writesHonourIfMatch() {
+        String email = "reactive.ifmatch@gmail.com";
+        create(email, BIRTH_DATE);
+        Long id = findByEmail(email).getId();
+        String eTag = client.get().uri("/users/{id}", id).exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+        client.get().uri("/users/{id}", id).ifNoneMatch(eTag).exchange()
+                .expectStatus().isNotModified();
+
+        client.patch().uri("/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(Map.of("address", "Kyiv"))
+                .exchange()
+                .expectStatus().isOk();
+        client.put().uri("/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(new UserDto(null, email, "Ann", "Smith", BIRTH_DATE, "Lviv", null))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        client.patch().uri("/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .bodyValue(Map.of("address", "Lviv"))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        client.delete().uri("/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        client.delete().uri("/users/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .exchange()
+                .expectStatus().isOk();
+        client.delete().uri("/users/{id}", id).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void rangeIsStreamedAsNdjsonWithViewLinks() {
+        LocalDate birthDate = LocalDate.of(1932, 5, 6);
+        create("reactive.range1@gmail.com", birthDate);
+        create("reactive.range2@gmail.com", birthDate.plusDays(1));
+
+        List<UserDto> users = client.get()
+                .uri("/users?start_date={start}&end_date={end}", birthDate, birthDate.plusDays(1))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(UserDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(users).extracting(UserDto::getEmail)
+                .containsExactly("reactive.range1@gmail.com", "reactive.range2@gmail.com");
+        assertThat(users.get(0).getRequiredLink("view").getHref()).endsWith("/users/" + users.get(0).getId());
+    }
+
+    @Test
+    void compactRangeHasNoLinks() {
+        LocalDate birthDate = LocalDate.of(1933, 7, 8);
+        create("reactive.compact@gmail.com", birthDate);
+
+        client.get()
+                .uri("/users?start_date={start}&end_date={end}&compact=true", birthDate, birthDate)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].email").isEqualTo("reactive.compact@gmail.com")
+                .jsonPath("$[0].links").doesNotExist();
+    }
+
+    @Test
+    void duplicateEmailIsRejected() {
+        create("reactive.duplicate@gmail.com", BIRTH_DATE);
+
+        client.post().uri("/users")
+                .bodyValue(new UserDto(null, "Reactive.Duplicate@gmail.com", "Ann", "Smith", BIRTH_DATE, null, null))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void invalidUserIsRejected() {
+        client.post().uri("/users")
+                .bodyValue(new UserDto(null, "not-an-email", "Ann", "Smith", BIRTH_DATE, null, null))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.messages[0]").isEqualTo("Wrong email format");
+        client.post().uri("/users")
+                .bodyValue(new UserDto(null, "reactive.young@gmail.com", "Ann", "Smith",
+                        LocalDate.now().minusYears(1), null, null))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private void create(String email, LocalDate birthDate) {
+        client.post().uri("/users")
+                .bodyValue(new UserDto(null, email, "Jane", "Doe", birthDate, null, "0123456789"))
+                .exchange()
+                .expectStatus().isCreated();
+    }
+
+    private UserDto findByEmail(String email) {
+        return client.get()
+                .uri("/users?start_date={start}&end_date={end}&compact=true", BIRTH_DATE, BIRTH_DATE)
+                .exchange()
+                .expectBodyList(UserDto.class)
+                .returnResult()
+                .getResponseBody()
+                .stream()
+                .filter(user -> user.getEmail().equals(email))
+                .findFirst()
+                .orElseThrow();
+    }
+}
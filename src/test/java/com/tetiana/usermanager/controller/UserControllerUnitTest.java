@@ -1,14 +1,26 @@
 package com.tetiana.usermanager.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.protobuf.CodedInputStream;
 import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.mapper.UserProtobuf;
 import com.tetiana.usermanager.service.UserService;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -17,14 +29,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -43,19 +61,30 @@ public class UserControllerUnitTest {
 
     @Test
     public void testGetUserById() throws Exception {
-        UserDto user = createUserDto(DEFAULT_ID);
+        UserView user = createUserView(DEFAULT_ID);
 
-        Mockito.when(userService.get(DEFAULT_ID)).thenReturn(user);
+        Mockito.when(userService.getView(DEFAULT_ID)).thenReturn(user);
 
         mockMvc.perform(get("/users/{id}", DEFAULT_ID))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
                 .andExpect(jsonPath("$.id").value(DEFAULT_ID))
-                .andExpect(jsonPath("$.email").value(user.getEmail()))
-                .andExpect(jsonPath("$.birthDate").value(user.getBirthDate().toString()))
-                .andExpect(jsonPath("$.firstName").value(user.getFirstName()))
-                .andExpect(jsonPath("$.lastName").value(user.getLastName()))
-                .andExpect(jsonPath("$.phoneNumber").value(user.getPhoneNumber()))
-                .andExpect(jsonPath("$.address").value(user.getAddress()));
+                .andExpect(jsonPath("$.email").value(user.email()))
+                .andExpect(jsonPath("$.birthDate").value(user.birthDate().toString()))
+                .andExpect(jsonPath("$.firstName").value(user.firstName()))
+                .andExpect(jsonPath("$.lastName").value(user.lastName()))
+                .andExpect(jsonPath("$.phoneNumber").value(user.phoneNumber()))
+                .andExpect(jsonPath("$.address").value(user.address()));
+    }
+
+    @Test
+    public void testGetUnchangedUserIsNotModified() throws Exception {
+        Mockito.when(userService.getView(DEFAULT_ID)).thenReturn(createUserView(DEFAULT_ID));
+
+        mockMvc.perform(get("/users/{id}", DEFAULT_ID)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
     }
 
     @Test
@@ -63,19 +92,171 @@ public class UserControllerUnitTest {
         LocalDate startDate = LocalDate.of(1990, 1, 1);
         LocalDate endDate = LocalDate.of(2000, 12, 31);
 
-        List<UserDto> userDtos = new ArrayList<>();
+        List<UserView> users = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            userDtos.add(createUserDto((long) i));
+            users.add(createUserView((long) i));
         }
 
-        Mockito.when(userService.getUsersByBirthDateRange(startDate, endDate)).thenReturn(userDtos);
+        Mockito.when(userService.getViewsByBirthDateRange(startDate, endDate)).thenReturn(users);
 
         mockMvc.perform(get("/users")
                         .param("start_date", startDate.toString())
-                        .param("end_date", endDate.toString()))
+                        .param("end_date", endDate.toString())
+                        .param("compact", "true"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.length()", Matchers.is(userDtos.size())));
+                .andExpect(jsonPath("$.length()", Matchers.is(users.size())))
+                .andExpect(jsonPath("$[4].id").value(4))
+                .andExpect(jsonPath("$[4].birthDate").value(users.get(4).birthDate().toString()))
+                .andExpect(jsonPath("$[4].version").doesNotExist());
+    }
+
+    @Test
+    public void testGetUsersByBirthDateRangeAsProtobuf() throws Exception {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+        List<UserView> users = List.of(createUserView(1L), createUserView(2L));
+
+        Mockito.when(userService.getViewsByBirthDateRange(startDate, endDate)).thenReturn(users);
+
+        byte[] body = mockMvc.perform(get("/users")
+                        .param("start_date", startDate.toString())
+                        .param("end_date", endDate.toString())
+                        .param("compact", "true")
+                        .accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<UserDto> read = UserProtobuf.readList(CodedInputStream.newInstance(body));
+        Assertions.assertEquals(users.stream().map(UserMapper::toDto).toList(), read);
+    }
+
+    @Test
+    public void testGetUsersByEmailAsCbor() throws Exception {
+        UserDto user = createUserDto(DEFAULT_ID);
+
+        Mockito.when(userService.getUsersByEmail(user.getEmail(), false)).thenReturn(List.of(user));
+
+        byte[] body = mockMvc.perform(get("/users").param("email", user.getEmail())
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode read = new ObjectMapper(new CBORFactory()).readTree(body);
+        Assertions.assertEquals(DEFAULT_ID, read.get(0).get("id").asLong());
+        Assertions.assertEquals(user.getBirthDate().toString(), read.get(0).get("birthDate").asText());
+    }
+
+    @Test
+    public void testGetUsersByEmail() throws Exception {
+        UserDto user = createUserDto(DEFAULT_ID);
+
+        Mockito.when(userService.getUsersByEmail(user.getEmail(), false)).thenReturn(List.of(user));
+
+        mockMvc.perform(get("/users").param("email", user.getEmail()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", Matchers.is(1)))
+                .andExpect(jsonPath("$[0].id").value(DEFAULT_ID));
+    }
+
+    @Test
+    public void testSearchUsers() throws Exception {
+        UserDto user = createUserDto(DEFAULT_ID);
+
+        Mockito.when(userService.searchUsers("jo smi", 10, false)).thenReturn(List.of(user));
+
+        mockMvc.perform(get("/users/search").param("q", "jo smi"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", Matchers.is(1)))
+                .andExpect(jsonPath("$[0].id").value(DEFAULT_ID));
+    }
+
+    @Test
+    public void testRebuildSearchIndexIsAccepted() throws Exception {
+        mockMvc.perform(post("/users/search/rebuild"))
+                .andExpect(status().isAccepted());
+
+        Mockito.verify(userService).rebuildSearchIndex();
+    }
+
+    @Test
+    public void testGetUsersPage() throws Exception {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+
+        UserPageDto page = new UserPageDto(List.of(createUserDto(DEFAULT_ID)), "2000-01-01_1");
+
+        Mockito.when(userService.getUsersPageByBirthDateRange(startDate, endDate, null, 1, false)).thenReturn(page);
+
+        mockMvc.perform(get("/users/page")
+                        .param("start_date", startDate.toString())
+                        .param("end_date", endDate.toString())
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()", Matchers.is(1)))
+                .andExpect(jsonPath("$.nextCursor").value("2000-01-01_1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamUsersByBirthDateRange() throws Exception {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<UserView> consumer = invocation.getArgument(2);
+            consumer.accept(createUserView(1L));
+            consumer.accept(createUserView(2L));
+            return null;
+        }).when(userService).streamUsersByBirthDateRange(eq(startDate), eq(endDate), any(Consumer.class));
+
+        var result = mockMvc.perform(get("/users/stream")
+                        .param("start_date", startDate.toString())
+                        .param("end_date", endDate.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertEquals(2L, objectMapper.readValue(lines[1], UserDto.class).getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStreamUsersByBirthDateRangeAsSmile() throws Exception {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+
+        Mockito.doAnswer(invocation -> {
+            Consumer<UserView> consumer = invocation.getArgument(2);
+            consumer.accept(createUserView(1L));
+            consumer.accept(createUserView(2L));
+            return null;
+        }).when(userService).streamUsersByBirthDateRange(eq(startDate), eq(endDate), any(Consumer.class));
+
+        var result = mockMvc.perform(get("/users/stream")
+                        .param("start_date", startDate.toString())
+                        .param("end_date", endDate.toString())
+                        .accept("application/x-ndjson;q=0.5", "application/x-jackson-smile"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()).registerModule(new JavaTimeModule());
+        List<UserDto> read = smileMapper.readerFor(UserDto.class).<UserDto>readValues(body).readAll();
+        Assertions.assertEquals(List.of(UserMapper.toDto(createUserView(1L)), UserMapper.toDto(createUserView(2L))),
+                read);
     }
 
     @Test
@@ -93,6 +274,7 @@ public class UserControllerUnitTest {
     public void testDeleteUser() throws Exception {
         mockMvc.perform(delete("/users/{id}", DEFAULT_ID))
                 .andExpect(status().isOk());
+        Mockito.verify(userService).delete(DEFAULT_ID, null);
     }
 
     @Test
@@ -101,8 +283,25 @@ public class UserControllerUnitTest {
 
         mockMvc.perform(put("/users/{id}", DEFAULT_ID)
                         .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"7\"")
                         .content(asJsonString(userDto)))
                 .andExpect(status().isOk());
+        Mockito.verify(userService).update(DEFAULT_ID, userDto, 7L);
+    }
+
+    @Test
+    public void testUpdateUserAtStaleVersionFails() throws Exception {
+        Mockito.doThrow(new PreconditionFailedException("stale"))
+                .when(userService).partialUpdate(eq(DEFAULT_ID), any(), eq(6L));
+
+        mockMvc.perform(patch("/users/{id}", DEFAULT_ID)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"6\"")
+                        .content(asJsonString(Map.of("firstName", "NewFirstName"))))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/users/{id}", DEFAULT_ID)
+                        .header(HttpHeaders.IF_MATCH, "W/\"7\""))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
@@ -124,6 +323,11 @@ public class UserControllerUnitTest {
         }
     }
 
+    private UserView createUserView(Long id) {
+        return new UserView(id, "user@gamil.com", "firstName" + id, "lastName" + id, LocalDate.of(2000, 1, 1),
+                "Ukraine", "1234567890", 7);
+    }
+
     private UserDto createUserDto(Long id) {
         UserDto user = new UserDto();
         user.setId(id);
@@ -0,0 +1,43 @@
+package com.tetiana.usermanager.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.tetiana.usermanager.dto.UserView;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UserViewSerializerTest {
+    // dates as ISO strings, like Spring Boot configures it
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Test
+    public void testViewIsWrittenLikeDtoWithoutLinks() throws Exception {
+        for (UserView user : List.of(
+                new UserView(1L, "user@gamil.com", "First", "Last \"Quoted\"", LocalDate.of(1990, 5, 17),
+                        "Kyiv, Ukraine", "0123456789", 3),
+                new UserView(2L, "user2@gamil.com", "Перше", "Last", LocalDate.of(1850, 12, 31), null, "", 0))) {
+            ObjectNode expected = (ObjectNode) objectMapper.valueToTree(UserMapper.toDto(user));
+            expected.remove("links");
+
+            assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(user));
+        }
+    }
+
+    @Test
+    public void testBirthDatesAreEncodedOnce() {
+        LocalDate date = LocalDate.of(2001, 2, 3);
+
+        assertEquals("2001-02-03", UserViewSerializer.birthDate(date).getValue());
+        assertSame(UserViewSerializer.birthDate(date), UserViewSerializer.birthDate(LocalDate.parse("2001-02-03")));
+        assertEquals("2100-01-01", UserViewSerializer.birthDate(LocalDate.of(2100, 1, 1)).getValue());
+    }
+}
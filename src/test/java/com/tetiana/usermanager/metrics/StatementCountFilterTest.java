@@ -0,0 +1,36 @@
+package com.tetiana.usermanager.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StatementCountFilterTest {
+    private final StatementCounter statementCounter = new StatementCounter();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StatementCountFilter filter = new StatementCountFilter(statementCounter, meterRegistry);
+
+    @Test
+    public void testRecordsStatementsPerRequest() throws Exception {
+        statementCounter.inspect("select 1");
+
+        FilterChain chain = (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/users/{id}");
+            statementCounter.inspect("select * from user where id = ?");
+            statementCounter.inspect("update user set last_name = ? where id = ?");
+        };
+        filter.doFilter(new MockHttpServletRequest("GET", "/users/1"), new MockHttpServletResponse(), chain);
+
+        DistributionSummary summary = meterRegistry.get(StatementCountFilter.METRIC)
+                .tag("method", "GET")
+                .tag("uri", "/users/{id}")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2, summary.totalAmount());
+    }
+}
@@ -0,0 +1,113 @@
+package com.tetiana.usermanager.routing;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "replica_urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "replica_check_interval=1h",
+        "replica_max_lag=1s",
+        "change_relay_enabled=false"})
+public class ReplicaRoutingTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final DataSource REPLICA = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private HikariDataSource primaryDataSource;
+
+    private final JdbcTemplate replica = new JdbcTemplate(REPLICA);
+
+    @BeforeAll
+    public static void migrateReplica() {
+        Flyway.configure().dataSource(REPLICA).load().migrate();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+        replica.update("DELETE FROM user");
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToAReplicaInSync() {
+        insertIntoReplica(1_000_001L, "replica@gamil.com", "Replica");
+        beatOnReplica(Instant.now());
+        replicaRoutingDataSource.checkReplicas();
+
+        assertEquals(1, userService.getUsersByEmail("replica@gamil.com", true).size());
+        assertEquals("Replica", userService.get(1_000_001L).getLastName());
+    }
+
+    @Test
+    public void testReadsFallBackToThePrimaryWhenTheReplicaLags() {
+        insertIntoReplica(1_000_002L, "lagging@gamil.com", "Replica");
+        beatOnReplica(Instant.now().minus(Duration.ofMinutes(1)));
+        replicaRoutingDataSource.checkReplicas();
+
+        assertEquals(0, userService.getUsersByEmail("lagging@gamil.com", true).size());
+    }
+
+    @Test
+    public void testMissingOnlyTheNewestBeatIsNotLag() throws InterruptedException {
+        insertIntoReplica(1_000_003L, "previous@gamil.com", "Replica");
+        replicaRoutingDataSource.checkReplicas();
+        // the replica applies the beat, then a check interval longer than the maximum lag passes
+        beatOnReplica(new JdbcTemplate(primaryDataSource)
+                .queryForObject("SELECT beat_at FROM replica_heartbeat", Timestamp.class).toInstant());
+        Thread.sleep(1_100);
+        replicaRoutingDataSource.checkReplicas();
+
+        assertEquals(1, userService.getUsersByEmail("previous@gamil.com", true).size());
+    }
+
+    @Test
+    public void testUsersJustWrittenAreReadFromThePrimary() {
+        userService.create(new UserDto(null, "written@gamil.com", "Routing", "Primary", LocalDate.of(1980, 1, 1),
+                "Kyiv, Ukraine", "0123456789"));
+        Long id = new JdbcTemplate(primaryDataSource)
+                .queryForObject("SELECT id FROM user WHERE email = 'written@gamil.com'", Long.class);
+        // the replica has yet to apply the write
+        insertIntoReplica(id, "written@gamil.com", "Stale");
+        beatOnReplica(Instant.now());
+        replicaRoutingDataSource.checkReplicas();
+
+        assertEquals("Primary", userService.get(id).getLastName());
+        assertEquals("Stale", userService.getUsersByEmail("written@gamil.com", true).get(0).getLastName());
+    }
+
+    private void insertIntoReplica(Long id, String email, String lastName) {
+        replica.update("INSERT INTO user (id, email, first_name, last_name, birth_date) VALUES (?, ?, ?, ?, ?)",
+                id, email, "Routing", lastName, LocalDate.of(1980, 1, 1));
+    }
+
+    private void beatOnReplica(Instant beatAt) {
+        replica.update("UPDATE replica_heartbeat SET beat_at = ?", Timestamp.from(beatAt));
+    }
+}
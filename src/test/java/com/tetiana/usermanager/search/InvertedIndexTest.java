@@ -0,0 +1,80 @@
+package com.tetiana.usermanager.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new InvertedIndex(100);
+        index.put(1, "John", "Smith", "john.smith@gamil.com", "Kyiv, Khreshchatyk 1");
+        index.put(2, "Johanna", "Smithson", "jo@gamil.com", "Lviv, Rynok 5");
+        index.put(3, "Anna", "Goldsmith", "anna@gamil.com", "Kyiv, Podil 7");
+    }
+
+    @Test
+    public void testWholeWordsRankBeforePrefixesAndPrefixesBeforeInfixes() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("smith", 10));
+        assertEquals(List.of(3L, 2L), index.search("ANNA", 10));
+    }
+
+    @Test
+    public void testEveryQueryWordHasToMatch() {
+        assertEquals(List.of(1L, 3L), index.search("kyiv", 10));
+        assertEquals(List.of(1L), index.search("kyiv jo", 10));
+        assertEquals(List.of(), index.search("kyiv lviv", 10));
+        assertEquals(List.of(), index.search(" ,.@ ", 10));
+    }
+
+    @Test
+    public void testSearchStopsAtLimit() {
+        assertEquals(List.of(1L, 2L), index.search("gamil", 2));
+    }
+
+    @Test
+    public void testPutReplacesPreviousWordsAndRemoveDropsThem() {
+        index.put(1, "Ivan", "Petrenko", "ivan@gamil.com", "Odesa");
+        index.remove(3);
+
+        assertEquals(List.of(2L), index.search("smith", 10));
+        assertEquals(List.of(1L), index.search("petr", 10));
+        assertEquals(List.of(), index.search("kyiv", 10));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testPrefixesExpandToAtMostMaxExpansionsWords() {
+        InvertedIndex small = new InvertedIndex(1);
+        small.put(1, "abc");
+        small.put(2, "abd");
+
+        assertEquals(List.of(1L), small.search("ab", 10));
+    }
+
+    @Test
+    public void testReadsWhatItWrote() throws IOException {
+        index.remove(2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        InvertedIndex read = InvertedIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())),
+                100);
+        read.put(4, "Taras", "Smithy");
+
+        assertEquals(List.of(1L, 4L, 3L), read.search("smith", 10));
+        assertEquals(List.of(3L), read.search("podil", 10));
+        assertEquals(3, read.size());
+    }
+}
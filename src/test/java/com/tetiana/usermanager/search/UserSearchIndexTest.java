@@ -0,0 +1,88 @@
+package com.tetiana.usermanager.search;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+public class UserSearchIndexTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testWritesReachTheIndexOnCommit() {
+        userService.create(createUserDto("olena@gamil.com", "Olena", "Kovalenko"));
+        Long id = userService.getUsersByEmail("olena@gamil.com", true).get(0).getId();
+        assertEquals(List.of(id), searchIds("olena koval"));
+
+        userService.update(id, createUserDto("olena@gamil.com", "Olena", "Shevchenko"), null);
+        assertEquals(List.of(), searchIds("kovalenko"));
+        assertEquals(List.of(id), searchIds("shevch"));
+
+        userService.partialUpdate(id, Map.of("address", "Kharkiv, Sumska 10"), null);
+        assertEquals(List.of(id), searchIds("sumska"));
+
+        userService.delete(id, null);
+        assertEquals(List.of(), searchIds("olena"));
+    }
+
+    @Test
+    public void testRolledBackWritesDoNotReachTheIndex() {
+        userService.create(createUserDto("taken@gamil.com", "Taken", "Rollback"));
+
+        assertThatThrownBy(() -> userService.create(createUserDto("taken@gamil.com", "Mykola", "Rollback")))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertEquals(1, searchIds("rollback").size());
+        assertEquals(List.of(), searchIds("mykola"));
+    }
+
+    @Test
+    public void testRebuildFindsUsersWrittenAroundTheService() throws InterruptedException {
+        User user = new User();
+        user.setEmail("direct@gamil.com");
+        user.setFirstName("Bohdan");
+        user.setLastName("Direct");
+        user.setBirthDate(LocalDate.of(1980, 1, 1));
+        Long id = userRepository.save(user).getId();
+
+        userService.rebuildSearchIndex();
+
+        for (int i = 0; i < 50 && searchIds("bohdan").isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(List.of(id), searchIds("bohdan"));
+    }
+
+    private List<Long> searchIds(String query) {
+        return userService.searchUsers(query, 10, true).stream()
+                .map(UserDto::getId)
+                .toList();
+    }
+
+    private UserDto createUserDto(String email, String firstName, String lastName) {
+        return new UserDto(null, email, firstName, lastName, LocalDate.of(1980, 1, 1), "Kyiv, Ukraine",
+                "0123456789");
+    }
+}
@@ -0,0 +1,114 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.BatchResultDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserBatchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "batch_chunk_size=2")
+public class UserBatchServiceImplTest {
+
+    @Autowired
+    private UserBatchService userBatchService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testCreateAllReportsInvalidItems() {
+        List<UserDto> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(createUserDto(null, i));
+        }
+        users.get(1).setEmail("not an email");
+        users.get(3).setBirthDate(LocalDate.now().minusYears(1));
+
+        BatchResultDto result = userBatchService.createAll(users);
+
+        assertEquals(5, result.getProcessed());
+        assertEquals(3, result.getSucceeded());
+        assertEquals(List.of(1, 3), result.getErrors().stream().map(error -> error.getIndex()).toList());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    public void testCreateAllReportsOnlyTheDuplicateOfAFailedChunk() {
+        List<UserDto> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(createUserDto(null, i));
+        }
+        users.get(2).setEmail("User1@gamil.com");
+
+        BatchResultDto result = userBatchService.createAll(users);
+
+        assertEquals(3, result.getSucceeded());
+        assertEquals(1, result.getErrors().size());
+        assertEquals(2, result.getErrors().get(0).getIndex());
+        assertEquals(List.of("User with email user1@gamil.com already exists"),
+                result.getErrors().get(0).getMessages());
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    public void testUpdateAllReportsTheIdOfAFailedItem() {
+        userBatchService.createAll(List.of(createUserDto(null, 0), createUserDto(null, 1)));
+        List<Long> ids = userRepository.findAll().stream().map(User::getId).toList();
+
+        UserDto taken = createUserDto(ids.get(0), 1);
+        BatchResultDto result = userBatchService.updateAll(List.of(taken, createUserDto(ids.get(1), 1)));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(ids.get(0), result.getErrors().get(0).getId());
+        assertEquals(List.of("User with email user1@gamil.com already exists"),
+                result.getErrors().get(0).getMessages());
+    }
+
+    @Test
+    public void testUpdateAllAndDeleteAllReportMissingIds() {
+        userBatchService.createAll(List.of(createUserDto(null, 0), createUserDto(null, 1)));
+        List<Long> ids = userRepository.findAll().stream().map(User::getId).toList();
+
+        UserDto renamed = createUserDto(ids.get(0), 0);
+        renamed.setLastName("Renamed");
+        BatchResultDto updated = userBatchService.updateAll(List.of(renamed, createUserDto(-1L, 1)));
+
+        assertEquals(1, updated.getSucceeded());
+        assertEquals(1, updated.getErrors().get(0).getIndex());
+        assertEquals("Renamed", userRepository.findById(ids.get(0)).orElseThrow().getLastName());
+
+        BatchResultDto deleted = userBatchService.deleteAll(List.of(ids.get(0), -1L, ids.get(1)));
+
+        assertEquals(2, deleted.getSucceeded());
+        assertEquals(-1L, deleted.getErrors().get(0).getId());
+        assertTrue(userRepository.findAll().isEmpty());
+    }
+
+    private UserDto createUserDto(Long id, int i) {
+        UserDto user = new UserDto();
+        user.setId(id);
+        user.setEmail("user" + i + "@gamil.com");
+        user.setBirthDate(LocalDate.of(2000, 1, 1));
+        user.setFirstName("firstName" + i);
+        user.setLastName("lastName" + i);
+        user.setPhoneNumber("1234567890");
+        user.setAddress("Ukraine");
+        return user;
+    }
+}
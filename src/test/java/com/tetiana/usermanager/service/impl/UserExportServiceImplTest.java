@@ -0,0 +1,102 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedInputStream;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.mapper.UserProtobuf;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserExportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+public class UserExportServiceImplTest {
+
+    @Autowired
+    private UserExportService userExportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 3; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@gamil.com");
+            user.setFirstName("firstName" + i);
+            user.setLastName("lastName" + i);
+            user.setBirthDate(LocalDate.of(1990 + i, 1, 1));
+            user.setAddress("Kyiv, Ukraine");
+            userRepository.save(user);
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testExportNdjson() throws IOException {
+        String[] lines = export(UserDataFormat.NDJSON, null, null).split("\n");
+
+        assertEquals(3, lines.length);
+        UserDto user = objectMapper.readValue(lines[2], UserDto.class);
+        assertEquals("lastName2", user.getLastName());
+        assertEquals(LocalDate.of(1992, 1, 1), user.getBirthDate());
+    }
+
+    @Test
+    public void testExportCsvInRange() throws IOException {
+        String[] lines = export(UserDataFormat.CSV, LocalDate.of(1991, 1, 1), LocalDate.of(1995, 1, 1)).split("\n");
+
+        assertEquals(3, lines.length);
+        assertEquals("id,email,firstName,lastName,birthDate,address,phoneNumber", lines[0]);
+        assertEquals(",user1@gamil.com,firstName1,lastName1,1991-01-01,\"Kyiv, Ukraine\",",
+                lines[1].substring(lines[1].indexOf(',')));
+    }
+
+    @Test
+    public void testExportProtobuf() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        userExportService.export(UserDataFormat.PROTOBUF, LocalDate.of(1991, 1, 1), LocalDate.of(1995, 1, 1))
+                .writeTo(output);
+
+        List<UserDto> users = UserProtobuf.readList(CodedInputStream.newInstance(output.toByteArray()));
+        assertEquals(2, users.size());
+        assertEquals("user2@gamil.com", users.get(1).getEmail());
+        assertEquals(LocalDate.of(1992, 1, 1), users.get(1).getBirthDate());
+        assertNull(users.get(1).getPhoneNumber());
+    }
+
+    @Test
+    public void testExportRejectsHalfOpenRange() {
+        assertThatThrownBy(() -> userExportService.export(UserDataFormat.CSV, LocalDate.of(1991, 1, 1), null))
+                .isInstanceOf(IncorrectDateRangeException.class);
+    }
+
+    private String export(UserDataFormat format, LocalDate start, LocalDate end) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        userExportService.export(format, start, end).writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
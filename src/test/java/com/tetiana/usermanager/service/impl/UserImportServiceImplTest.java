@@ -0,0 +1,103 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.ImportJobDto;
+import com.tetiana.usermanager.exception.InvalidImportException;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserDataFormat;
+import com.tetiana.usermanager.service.UserImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"batch_chunk_size=3", "import_queue_capacity=2", "import_workers=2"})
+public class UserImportServiceImplTest {
+
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    public void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testImportCsv() throws IOException {
+        StringBuilder csv = new StringBuilder("email,firstName,lastName,birthDate,address,phoneNumber\n");
+        for (int i = 0; i < 10; i++) {
+            csv.append("user").append(i).append("@gamil.com,First,Last,2000-01-01,\"Kyiv, Ukraine\",1234567890\n");
+        }
+        csv.append("broken@gamil.com,First,Last,not a date,,\n");
+        csv.append("young@gamil.com,First,Last,2020-01-01,,\n");
+
+        ImportJobDto job = userImportService.importUsers(asStream(csv.toString()), UserDataFormat.CSV);
+
+        assertEquals("COMPLETED", job.getStatus());
+        assertEquals(12, job.getRowsRead());
+        assertEquals(10, job.getCommitted());
+        assertEquals(2, job.getRejected());
+        assertEquals(10, userRepository.count());
+        assertEquals("Kyiv, Ukraine", userRepository.findAll().get(0).getAddress());
+
+        List<String> rejects = Files.readAllLines(userImportService.getRejects(job.getId()));
+        assertEquals(2, rejects.size());
+        assertTrue(rejects.stream().anyMatch(reject -> reject.contains("\"line\":12")));
+    }
+
+    @Test
+    public void testImportNdjson() {
+        String ndjson = """
+                {"email":"a@gamil.com","firstName":"A","lastName":"A","birthDate":"2000-01-01"}
+                {"email":"b@gamil.com","firstName":"B","lastName":"B","birthDate":"2000-01-01"}
+                {"email":"c@gamil.com","firstName":"C"
+                """;
+
+        ImportJobDto job = userImportService.importUsers(asStream(ndjson), UserDataFormat.NDJSON);
+
+        assertEquals(2, job.getCommitted());
+        assertEquals(1, job.getRejected());
+        assertEquals(job.getId(), userImportService.getJob(job.getId()).getId());
+    }
+
+    @Test
+    public void testImportRejectsOnlyDuplicatesOfAFailedChunk() throws IOException {
+        String ndjson = """
+                {"email":"first@gamil.com","firstName":"A","lastName":"A","birthDate":"2000-01-01"}
+                {"email":"twice@gamil.com","firstName":"B","lastName":"B","birthDate":"2000-01-01"}
+                {"email":"Twice@gamil.com","firstName":"C","lastName":"C","birthDate":"2000-01-01"}
+                """;
+
+        ImportJobDto job = userImportService.importUsers(asStream(ndjson), UserDataFormat.NDJSON);
+
+        assertEquals(2, job.getCommitted());
+        assertEquals(1, job.getRejected());
+        assertEquals(2, userRepository.count());
+        List<String> rejects = Files.readAllLines(userImportService.getRejects(job.getId()));
+        assertTrue(rejects.get(0).contains("User with email twice@gamil.com already exists"));
+    }
+
+    @Test
+    public void testImportCsvWithUnknownColumn() {
+        assertThatThrownBy(() -> userImportService.importUsers(asStream("email,nickname\n"),
+                UserDataFormat.CSV))
+                .isInstanceOf(InvalidImportException.class);
+    }
+
+    private InputStream asStream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,182 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Counts the JDBC statements behind each write, and the reads the second-level cache saves, with Hibernate
+ * statistics.
+ */
+@SpringBootTest
+public class UserServiceImplStatementsTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private boolean statisticsEnabled;
+
+    private Long id;
+
+    @BeforeEach
+    public void setUp() {
+        User user = new User();
+        user.setEmail("statements@gamil.com");
+        user.setFirstName("firstName");
+        user.setLastName("lastName");
+        user.setBirthDate(LocalDate.of(1980, 1, 1));
+        id = userRepository.save(user).getId();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        statistics.setStatisticsEnabled(statisticsEnabled);
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void testUpdateIsOneStatement() {
+        userService.update(id, createUserDto(), 0L);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, userRepository.findById(id).orElseThrow().getVersion());
+    }
+
+    @Test
+    public void testDeleteIsOneStatement() {
+        userService.delete(id, null);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertFalse(userRepository.existsById(id));
+    }
+
+    @Test
+    public void testFailedWritesStillTellMissingFromChanged() {
+        assertThatThrownBy(() -> userService.update(id + 1, createUserDto(), null))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userService.update(id, createUserDto(), 5L))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> userService.delete(id + 1, null))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userService.delete(id, 5L))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    public void testDuplicateEmailIsRejectedByTheInsert() {
+        UserDto duplicate = createUserDto();
+        duplicate.setEmail("Statements@Gamil.com");
+
+        assertThatThrownBy(() -> userService.create(duplicate))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(id, userService.getUsersByEmail("STATEMENTS@gamil.com", true).get(0).getId());
+    }
+
+    @Test
+    public void testShortRangesAreServedFromTheQueryCacheUntilAWrite() {
+        LocalDate start = LocalDate.of(1979, 12, 15);
+        LocalDate end = LocalDate.of(1980, 1, 14);
+
+        assertEquals(1, userService.getUsersByBirthDateRange(start, end, true).size());
+        assertEquals(1, userService.getUsersByBirthDateRange(start, end, true).size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+
+        userService.update(id, createUserDto(), null);
+        statistics.clear();
+
+        assertEquals("updated@gamil.com", userService.getUsersByBirthDateRange(start, end, true).get(0).getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    public void testLongRangesSkipTheQueryCache() {
+        LocalDate start = LocalDate.of(1970, 1, 1);
+        LocalDate end = LocalDate.of(1990, 1, 1);
+
+        userService.getUsersByBirthDateRange(start, end, true);
+        userService.getUsersByBirthDateRange(start, end, true);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getQueryCachePutCount());
+    }
+
+    @Test
+    public void testUsersAreLoadedFromTheEntityCache() {
+        userRepository.findById(id).orElseThrow();
+        statistics.clear();
+
+        assertEquals("statements@gamil.com", userRepository.findById(id).orElseThrow().getEmail());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+    }
+
+    @Test
+    public void testWritesKeepOtherUsersInTheEntityCache() {
+        User other = new User();
+        other.setEmail("other@gamil.com");
+        other.setFirstName("firstName");
+        other.setLastName("lastName");
+        other.setBirthDate(LocalDate.of(1980, 1, 1));
+        Long otherId = userRepository.save(other).getId();
+        userRepository.findById(otherId).orElseThrow();
+        UserDto update = createUserDto();
+        update.setAddress(null);
+
+        userService.update(id, update, null);
+        statistics.clear();
+
+        assertEquals("other@gamil.com", userRepository.findById(otherId).orElseThrow().getEmail());
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        User updated = userRepository.findById(id).orElseThrow();
+        assertEquals("Updated", updated.getFirstName());
+        assertNull(updated.getAddress());
+
+        userService.delete(id, null);
+        statistics.clear();
+
+        userRepository.findById(otherId).orElseThrow();
+        assertEquals(1, statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount());
+    }
+
+    private UserDto createUserDto() {
+        return new UserDto(null, "updated@gamil.com", "Updated", "lastName", LocalDate.of(1980, 1, 1),
+                "Kyiv, Ukraine", "0123456789");
+    }
+}
@@ -1,20 +1,38 @@
 package com.tetiana.usermanager.service.impl;
 
+import com.tetiana.usermanager.cache.UserCache;
+import com.tetiana.usermanager.changes.UserChangeLog;
 import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.dto.UserView;
 import com.tetiana.usermanager.entity.User;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
 import com.tetiana.usermanager.exception.IncorrectDateRangeException;
+import com.tetiana.usermanager.exception.InvalidCursorException;
+import com.tetiana.usermanager.exception.InvalidPatchException;
 import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
 import com.tetiana.usermanager.exception.UserUnderAgeException;
 import com.tetiana.usermanager.repository.UserRepository;
+import com.tetiana.usermanager.routing.ReadRouting;
+import com.tetiana.usermanager.search.UserSearchIndex;
+import com.tetiana.usermanager.statistics.UserStatistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.IanaLinkRelations;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,10 +40,16 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,8 +58,20 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserCache userCache = new UserCache(100, Duration.ofMinutes(1));
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
     @Mock
-    private ModelMapper modelMapper;
+    private UserStatistics userStatistics;
+
+    @Mock
+    private UserChangeLog userChangeLog;
+
+    @Spy
+    private ReadRouting readRouting = new ReadRouting("", Duration.ofSeconds(5), Duration.ofSeconds(1));
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -44,40 +80,85 @@ public class UserServiceImplTest {
 
     @Test
     public void testGetUserById() {
-        User user = createUser(DEFAULT_ID);
-        UserDto userDto = createUserDto(DEFAULT_ID);
+        UserView user = createUserView(DEFAULT_ID);
 
-        when(userRepository.findById(DEFAULT_ID)).thenReturn(Optional.of(user));
-        when(modelMapper.map(user, UserDto.class)).thenReturn(userDto);
+        when(userRepository.findViewById(DEFAULT_ID)).thenReturn(Optional.of(user));
 
         UserDto result = userService.get(DEFAULT_ID);
 
         assertNotNull(result);
         assertEquals(DEFAULT_ID, result.getId());
-        assertEquals(user.getLastName(), result.getLastName());
-        assertEquals(user.getFirstName(), result.getFirstName());
-        assertEquals(user.getEmail(), result.getEmail());
-        assertEquals(user.getAddress(), result.getAddress());
-        assertEquals(user.getPhoneNumber(), result.getPhoneNumber());
-        assertEquals(user.getBirthDate(), result.getBirthDate());
+        assertEquals(user.lastName(), result.getLastName());
+        assertEquals(user.firstName(), result.getFirstName());
+        assertEquals(user.email(), result.getEmail());
+        assertEquals(user.address(), result.getAddress());
+        assertEquals(user.phoneNumber(), result.getPhoneNumber());
+        assertEquals(user.birthDate(), result.getBirthDate());
     }
 
     @Test
     public void testGetUserByIdThrowsException() {
-        when(userRepository.findById(DEFAULT_ID)).thenReturn(Optional.empty());
+        when(userRepository.findViewById(DEFAULT_ID)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> userService.get(DEFAULT_ID))
                 .isInstanceOf(NotFoundException.class);
     }
 
+    @Test
+    public void testGetUserByIdIsCachedUntilUpdate() {
+        when(userRepository.findViewById(DEFAULT_ID)).thenReturn(Optional.of(createUserView(DEFAULT_ID)));
+
+        userService.get(DEFAULT_ID);
+        userService.get(DEFAULT_ID);
+        verify(userRepository, times(1)).findViewById(DEFAULT_ID);
+
+        when(userRepository.updateByIdAtVersion(eq(DEFAULT_ID), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(1);
+        userService.update(DEFAULT_ID, createUserDto(DEFAULT_ID), null);
+        userService.get(DEFAULT_ID);
+        verify(userRepository, times(2)).findViewById(DEFAULT_ID);
+        verify(userCache).invalidate(DEFAULT_ID);
+    }
+
     @Test
     public void testCreateUser() {
         UserDto userDto = createUserDto(DEFAULT_ID);
-        User user = createUser(DEFAULT_ID);
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
 
-        when(modelMapper.map(userDto, User.class)).thenReturn(user);
         userService.create(userDto);
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(saved.capture());
+        assertNull(saved.getValue().getId());
+    }
+
+    @Test
+    public void testCreateUserWithTakenEmailThrowsException() {
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLException("Duplicate entry for key 'user.uk_user_email'")));
+
+        assertThatThrownBy(() -> userService.create(createUserDto(DEFAULT_ID)))
+                .isInstanceOf(DuplicateEmailException.class);
+    }
+
+    @Test
+    public void testGetUsersByEmailIgnoresCase() {
+        when(userRepository.findViewByEmail("user@gamil.com")).thenReturn(Optional.of(createUserView(DEFAULT_ID)));
+
+        List<UserDto> result = userService.getUsersByEmail("User@Gamil.com", true);
+
+        assertEquals(1, result.size());
+        assertEquals(DEFAULT_ID, result.get(0).getId());
+    }
+
+    @Test
+    public void testSearchUsersKeepsIndexOrderAndSkipsDeletedUsers() {
+        userService.setMaxPageSize(1000);
+        when(userSearchIndex.search("first", 5)).thenReturn(List.of(3L, 1L, 2L));
+        when(userRepository.findViewsByIdIn(List.of(3L, 1L, 2L)))
+                .thenReturn(List.of(createUserView(1L), createUserView(3L)));
+
+        List<UserDto> result = userService.searchUsers("first", 5, true);
+
+        assertEquals(List.of(3L, 1L), result.stream().map(UserDto::getId).toList());
     }
 
     @Test
@@ -92,25 +173,55 @@ public class UserServiceImplTest {
 
     @Test
     public void testDeleteUser() {
-        userService.delete(DEFAULT_ID);
-        verify(userRepository, times(1)).deleteById(DEFAULT_ID);
+        when(userRepository.deleteByIdAtVersion(DEFAULT_ID, null)).thenReturn(1);
+
+        userService.delete(DEFAULT_ID, null);
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    public void testDeleteMissingUserThrowsException() {
+        assertThatThrownBy(() -> userService.delete(DEFAULT_ID, null))
+                .isInstanceOf(NotFoundException.class);
     }
 
     @Test
     public void testUpdateUser() {
         UserDto userDto = createUserDto(DEFAULT_ID);
-        User user = createUser(DEFAULT_ID);
 
-        when(modelMapper.map(userDto, User.class)).thenReturn(user);
+        when(userRepository.updateByIdAtVersion(DEFAULT_ID, userDto.getEmail(), userDto.getFirstName(),
+                userDto.getLastName(), userDto.getBirthDate(), userDto.getAddress(), userDto.getPhoneNumber(), 0L))
+                .thenReturn(1);
+
+        userService.update(DEFAULT_ID, userDto, 0L);
+    }
 
-        userService.update(DEFAULT_ID, userDto);
+    @Test
+    public void testUpdateUserAtStaleVersionThrowsException() {
+        User existing = createUser(DEFAULT_ID);
+        existing.setVersion(2);
+
+        when(userRepository.existsById(DEFAULT_ID)).thenReturn(true);
+        when(userRepository.findById(DEFAULT_ID)).thenReturn(Optional.of(existing));
+
+        assertThatThrownBy(() -> userService.update(DEFAULT_ID, createUserDto(DEFAULT_ID), 1L))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Map.of("lastName", "New"), 1L))
+                .isInstanceOf(PreconditionFailedException.class);
+        assertThatThrownBy(() -> userService.delete(DEFAULT_ID, 1L))
+                .isInstanceOf(PreconditionFailedException.class);
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
 
-        verify(userRepository, times(1)).save(any(User.class));
+    @Test
+    public void testUpdateMissingUserThrowsException() {
+        assertThatThrownBy(() -> userService.update(DEFAULT_ID, createUserDto(DEFAULT_ID), 1L))
+                .isInstanceOf(NotFoundException.class);
     }
 
     @Test
     public void testPartialUpdateUser() {
-        Map<Object, Object> fieldsMap = new HashMap<>();
+        Map<String, Object> fieldsMap = new HashMap<>();
         fieldsMap.put("lastName", "Updated Name");
         fieldsMap.put("birthDate", "2001-01-01");
 
@@ -121,35 +232,143 @@ public class UserServiceImplTest {
 
         when(userRepository.findById(DEFAULT_ID)).thenReturn(Optional.of(user));
 
-        userService.partialUpdate(DEFAULT_ID, fieldsMap);
+        userService.partialUpdate(DEFAULT_ID, fieldsMap, null);
 
-        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, times(1)).saveAndFlush(any(User.class));
         assertEquals(updatedUser, user);
     }
 
+    @Test
+    public void testPartialUpdateUserWithoutChangesIsNotSaved() {
+        User user = createUser(DEFAULT_ID);
+
+        when(userRepository.findById(DEFAULT_ID)).thenReturn(Optional.of(user));
+
+        userService.partialUpdate(DEFAULT_ID, Map.of("lastName", user.getLastName()), null);
+
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+    }
+
+    @Test
+    public void testPartialUpdateUserRejectsInvalidFields() {
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Map.of("id", 5), null))
+                .isInstanceOf(InvalidPatchException.class);
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Map.of("firstName", 5), null))
+                .isInstanceOf(InvalidPatchException.class);
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Map.of("birthDate", 5), null))
+                .isInstanceOf(InvalidPatchException.class)
+                .hasMessage("Wrong value for field birthDate");
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Map.of("birthDate", "yesterday"), null))
+                .isInstanceOf(InvalidPatchException.class)
+                .hasMessage("Wrong value for field birthDate");
+        assertThatThrownBy(() -> userService.partialUpdate(DEFAULT_ID, Collections.singletonMap("email", null), null))
+                .isInstanceOf(InvalidPatchException.class);
+
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     public void testGetUsersByBirthDateRange() {
         LocalDate startDate = LocalDate.of(1990, 1, 1);
         LocalDate endDate = LocalDate.of(2000, 12, 31);
 
-        List<User> users = new ArrayList<>();
+        List<UserView> users = new ArrayList<>();
         for (int i = 0; i < 5; i++) {
-            users.add(createUser((long) i));
-            UserDto userDto = createUserDto((long) i);
-            when(modelMapper.map(users.get(i), UserDto.class)).thenReturn(userDto);
+            users.add(createUserView((long) i));
         }
 
-        when(userRepository.findByBirthDateBetween(startDate, endDate)).thenReturn(users);
+        when(userRepository.findViewsByBirthDateBetween(startDate, endDate)).thenReturn(users);
 
-        List<UserDto> result = userService.getUsersByBirthDateRange(startDate, endDate);
+        List<UserDto> result = userService.getUsersByBirthDateRange(startDate, endDate, false);
 
         assertNotNull(result);
         assertEquals(users.size(), result.size());
+        assertEquals(users.get(4).lastName(), result.get(4).getLastName());
+        assertTrue(result.get(4).getRequiredLink("view").getHref().endsWith("/users/4"));
+
+        List<UserDto> compact = userService.getUsersByBirthDateRange(startDate, endDate, true);
 
-        assertThatThrownBy(() -> userService.getUsersByBirthDateRange(endDate, startDate))
+        assertEquals(users.size(), compact.size());
+        assertFalse(compact.get(4).hasLinks());
+
+        assertThatThrownBy(() -> userService.getUsersByBirthDateRange(endDate, startDate, false))
                 .isInstanceOf(IncorrectDateRangeException.class);
     }
 
+    @Test
+    public void testShortBirthDateRangesGoThroughTheQueryCache() {
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 1, 31);
+        List<UserView> users = List.of(createUserView(1L));
+        userService.setRangeCacheMaxDays(31);
+
+        when(userRepository.findCachedViewsByBirthDateBetween(startDate, endDate)).thenReturn(users);
+
+        assertEquals(1, userService.getUsersByBirthDateRange(startDate, endDate, true).size());
+        verify(userRepository, never()).findViewsByBirthDateBetween(any(), any());
+    }
+
+    @Test
+    public void testGetUsersPageByBirthDateRange() {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+        userService.setMaxPageSize(1000);
+
+        List<UserView> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(createUserView((long) i));
+        }
+
+        when(userRepository.findViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(eq(startDate), eq(endDate),
+                any(Pageable.class))).thenReturn(users);
+
+        UserPageDto page = userService.getUsersPageByBirthDateRange(startDate, endDate, null, 2, false);
+
+        assertEquals(2, page.getUsers().size());
+        assertEquals("2000-01-01_1", page.getNextCursor());
+        assertTrue(page.getLink(IanaLinkRelations.NEXT).isPresent());
+    }
+
+    @Test
+    public void testGetUsersPageByBirthDateRangeAfterCursor() {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+        userService.setMaxPageSize(1000);
+
+        when(userRepository.findViewsByBirthDateBetweenAfter(eq(startDate), eq(endDate),
+                eq(LocalDate.of(2000, 1, 1)), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(createUserView(2L)));
+
+        UserPageDto page = userService.getUsersPageByBirthDateRange(startDate, endDate, "2000-01-01_1", 2, false);
+
+        assertEquals(1, page.getUsers().size());
+        assertNull(page.getNextCursor());
+        assertFalse(page.getLink(IanaLinkRelations.NEXT).isPresent());
+
+        assertThatThrownBy(() -> userService.getUsersPageByBirthDateRange(startDate, endDate, "2000-01-01", 2, false))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    public void testStreamUsersByBirthDateRange() {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(2000, 12, 31);
+
+        List<UserView> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            users.add(createUserView((long) i));
+        }
+
+        when(userRepository.streamViewsByBirthDateBetweenOrderByBirthDateAscIdAsc(startDate, endDate))
+                .thenReturn(users.stream());
+
+        List<UserView> result = new ArrayList<>();
+        userService.streamUsersByBirthDateRange(startDate, endDate, result::add);
+
+        assertEquals(users, result);
+    }
+
+
     private UserDto createUserDto(Long id) {
         UserDto user = new UserDto();
         user.setId(id);
@@ -162,6 +381,11 @@ public class UserServiceImplTest {
         return user;
     }
 
+    private UserView createUserView(Long id) {
+        return new UserView(id, "user@gamil.com", "firstName" + id, "lastName" + id, LocalDate.of(2000, 1, 1),
+                "Ukraine", "1234567890", 0);
+    }
+
     private User createUser(Long id) {
         User user = new User();
         user.setId(id);
@@ -0,0 +1,91 @@
+package com.tetiana.usermanager.service.impl;
+
+import com.tetiana.usermanager.dto.AgeGroupDto;
+import com.tetiana.usermanager.dto.BirthCountDto;
+import com.tetiana.usermanager.exception.StatisticsNotReadyException;
+import com.tetiana.usermanager.service.BirthPeriod;
+import com.tetiana.usermanager.statistics.BirthDateHistogram;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class UserStatisticsServiceImplTest {
+
+    @Mock
+    private UserStatistics userStatistics;
+
+    @InjectMocks
+    private UserStatisticsServiceImpl userStatisticsService;
+
+    private final BirthDateHistogram histogram = new BirthDateHistogram();
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void setUp() {
+        userStatisticsService.setAllowedAge(18);
+    }
+
+    @Test
+    public void testAgeGroupsStartAtTheAllowedAge() {
+        when(userStatistics.histogram()).thenReturn(histogram);
+        histogram.put(1, today.minusYears(17));
+        histogram.put(2, today.minusYears(18));
+        histogram.put(3, today.minusYears(27).minusDays(1));
+        histogram.put(4, today.minusYears(40));
+
+        List<AgeGroupDto> groups = userStatisticsService.getAgeGroups(10);
+
+        assertEquals(List.of(new AgeGroupDto(0, 17, 1), new AgeGroupDto(18, 27, 2),
+                new AgeGroupDto(28, 37, 0), new AgeGroupDto(38, 47, 1)), groups);
+    }
+
+    @Test
+    public void testChangesMoveUsersBetweenCounts() {
+        when(userStatistics.histogram()).thenReturn(histogram);
+        histogram.put(1, LocalDate.of(1990, 5, 17));
+        histogram.put(2, LocalDate.of(1990, 5, 1));
+        histogram.put(3, LocalDate.of(1991, 1, 1));
+        histogram.put(3, LocalDate.of(1990, 7, 1));
+        histogram.put(4, LocalDate.of(1985, 1, 1));
+        histogram.remove(4);
+
+        assertEquals(List.of(new BirthCountDto("1990", 3)), userStatisticsService.getBirthCounts(BirthPeriod.YEAR));
+        assertEquals(List.of(new BirthCountDto("1990-05", 2), new BirthCountDto("1990-07", 1)),
+                userStatisticsService.getBirthCounts(BirthPeriod.MONTH));
+        assertEquals(3, histogram.size());
+    }
+
+    @Test
+    public void testUpcomingBirthdaysCountEveryDayFromToday() {
+        when(userStatistics.histogram()).thenReturn(histogram);
+        histogram.put(1, today.minusYears(30));
+        histogram.put(2, today.plusDays(2).minusYears(40));
+        histogram.put(3, today.plusDays(2).minusYears(20));
+        histogram.put(4, today.minusDays(1).minusYears(30));
+
+        List<BirthCountDto> birthdays = userStatisticsService.getUpcomingBirthdays(3);
+
+        assertEquals(List.of(new BirthCountDto(today.toString(), 1),
+                new BirthCountDto(today.plusDays(1).toString(), 0),
+                new BirthCountDto(today.plusDays(2).toString(), 2)), birthdays);
+    }
+
+    @Test
+    public void testStatisticsAreUnavailableUntilLoaded() {
+        assertThatThrownBy(() -> userStatisticsService.getBirthCounts(BirthPeriod.YEAR))
+                .isInstanceOf(StatisticsNotReadyException.class);
+    }
+}
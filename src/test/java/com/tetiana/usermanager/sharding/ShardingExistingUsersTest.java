@@ -0,0 +1,133 @@
+package com.tetiana.usermanager.sharding;
+
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.service.UserService;
+import com.tetiana.usermanager.statistics.UserStatistics;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Turning sharding on over a database that already holds users.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingExistingUsersTest.MAIN_URL,
+        "shard_urls=jdbc:h2:mem:existing1;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:existing2;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "change_relay_enabled=false"})
+@ActiveProfiles("sharded")
+public class ShardingExistingUsersTest {
+    static final String MAIN_URL = "jdbc:h2:mem:existing0;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final DataSource MAIN = new DriverManagerDataSource(MAIN_URL, "sa", "");
+    private static final int EXISTING = 60;
+    // spaces the ids out so that the rebalance leaves some on every shard
+    private static final int SPACING = 17;
+    private static final LocalDate START = LocalDate.of(1970, 1, 1);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ShardedUserStore userStore;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private UserStatistics userStatistics;
+
+    /**
+     * The users are made by the schema from before sharding, which the application then migrates.
+     */
+    @BeforeAll
+    public static void createExistingUsers() {
+        Flyway.configure().dataSource(MAIN).target("7").load().migrate();
+        JdbcTemplate main = new JdbcTemplate(MAIN);
+        for (long id = SPACING; id <= EXISTING * SPACING; id += SPACING) {
+            main.update("INSERT INTO user (id, email, first_name, last_name, birth_date, address, phone_number) "
+                            + "VALUES (?, ?, 'Existing', ?, ?, 'Kyiv', '0123456789')",
+                    id, "existing" + id + "@gamil.com", "Existing" + id, START.plusDays(id));
+        }
+        main.update("UPDATE id_generator SET next_val = ? WHERE name = 'user'", EXISTING * SPACING + 1);
+    }
+
+    @Test
+    public void testExistingUsersStayReachableWhileSpreadOut() throws InterruptedException {
+        assertExistingUsersReachable();
+        assertThatThrownBy(() -> userService.create(createUserDto("existing17@gamil.com")))
+                .isInstanceOf(DuplicateEmailException.class);
+
+        shardRebalancer.rebalance();
+
+        assertExistingUsersReachable();
+        for (int shard = 0; shard < userStore.shardCount(); shard++) {
+            int count = userStore.shard(shard).queryForObject("SELECT COUNT(*) FROM user", Integer.class);
+            assertTrue(count > 0 && count < EXISTING);
+        }
+
+        // a restart loads the search index and statistics from all shards
+        userService.rebuildSearchIndex();
+        userStatistics.load();
+        for (int i = 0; i < 50 && userService.searchUsers("existing425", 10, true).isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(425L, userService.searchUsers("existing425", 10, true).get(0).getId());
+        for (int i = 0; i < 50 && userStatistics.histogram().size() != EXISTING; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(EXISTING, userStatistics.histogram().size());
+    }
+
+    @Test
+    public void testMovingBackKeepsUsersTheTargetHolds() {
+        long kept = 1024L * 1000 + 5;
+        long leftover = 1024L * 1001 + 5;
+        int bucket = ShardMap.bucketOf(kept);
+        int owner = shardMap.shardOfBucket(bucket);
+        int other = (owner + 1) % userStore.shardCount();
+        JdbcTemplate target = userStore.shard(other);
+        // a user the other shard holds with its email claimed, and a copy whose user has been deleted since
+        target.update("INSERT INTO user (id, email, first_name, last_name, birth_date) "
+                + "VALUES (?, 'kept@gamil.com', 'Kept', 'User', ?)", kept, START);
+        userStore.shard(0).update("INSERT INTO user_email (email, user_id) VALUES ('kept@gamil.com', ?)", kept);
+        target.update("INSERT INTO user (id, email, first_name, last_name, birth_date) "
+                + "VALUES (?, 'deleted@gamil.com', 'Deleted', 'User', ?)", leftover, START);
+
+        shardRebalancer.move(bucket, other);
+
+        assertEquals("kept@gamil.com", userService.get(kept).getEmail());
+        assertEquals(0, target.queryForObject("SELECT COUNT(*) FROM user WHERE id = ?", Integer.class, leftover));
+        shardRebalancer.move(bucket, owner);
+        assertEquals("kept@gamil.com", userService.get(kept).getEmail());
+        userService.delete(kept, null);
+    }
+
+    private void assertExistingUsersReachable() {
+        for (long id = SPACING; id <= EXISTING * SPACING; id += SPACING) {
+            assertEquals("Existing" + id, userService.get(id).getLastName());
+            assertEquals(id, userService.getUsersByEmail("existing" + id + "@gamil.com", true).get(0).getId());
+        }
+        assertEquals(EXISTING,
+                userService.getUsersByBirthDateRange(START, START.plusDays(EXISTING * SPACING), true).size());
+    }
+
+    private UserDto createUserDto(String email) {
+        return new UserDto(null, email, "New", "User", START, "Kyiv, Ukraine", "0123456789");
+    }
+}
@@ -0,0 +1,176 @@
+package com.tetiana.usermanager.sharding;
+
+import com.tetiana.usermanager.dto.RebalanceResultDto;
+import com.tetiana.usermanager.dto.UserDto;
+import com.tetiana.usermanager.dto.UserPageDto;
+import com.tetiana.usermanager.exception.DuplicateEmailException;
+import com.tetiana.usermanager.exception.NotFoundException;
+import com.tetiana.usermanager.exception.PreconditionFailedException;
+import com.tetiana.usermanager.mapper.UserMapper;
+import com.tetiana.usermanager.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard0;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "shard_urls=jdbc:h2:mem:shard1;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:shard2;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "change_relay_enabled=false"})
+@ActiveProfiles("sharded")
+public class ShardingTest {
+    private static final LocalDate START = LocalDate.of(1970, 1, 1);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ShardedUserStore userStore;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @AfterEach
+    public void cleanUp() {
+        for (int shard = 0; shard < userStore.shardCount(); shard++) {
+            userStore.shard(shard).update("DELETE FROM user");
+        }
+        userStore.shard(0).update("DELETE FROM user_email");
+    }
+
+    @Test
+    public void testUsersAreSpreadOverTheShardsAndMergedInOrder() {
+        List<Long> ids = createUsers(60);
+
+        for (int shard = 0; shard < userStore.shardCount(); shard++) {
+            assertTrue(countUsers(shard) > 0);
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("user" + i + "@gamil.com", userService.get(ids.get(i)).getEmail());
+        }
+        List<UserDto> range = userService.getUsersByBirthDateRange(START, START.plusDays(60), true);
+        assertEquals(60, range.size());
+        assertEquals(range.stream().sorted(Comparator.comparing(UserDto::getBirthDate)
+                .thenComparing(UserDto::getId)).toList(), range);
+
+        List<UserDto> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPageDto page = userService.getUsersPageByBirthDateRange(START, START.plusDays(60), cursor, 7, true);
+            paged.addAll(page.getUsers());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertEquals(range, paged);
+
+        List<UserDto> streamed = new ArrayList<>();
+        userService.streamUsersByBirthDateRange(START, START.plusDays(60),
+                user -> streamed.add(UserMapper.toDto(user)));
+        assertEquals(range, streamed);
+        assertEquals(range, userService.getViewsByBirthDateRange(START, START.plusDays(60)).stream()
+                .map(UserMapper::toDto).toList());
+    }
+
+    @Test
+    public void testWritesGoToTheUsersShard() {
+        Long id = createUsers(1).get(0);
+        long version = userService.getView(id).version();
+
+        userService.update(id, createUserDto("renamed@gamil.com", START), version);
+        assertEquals("renamed@gamil.com", userService.get(id).getEmail());
+        assertThatThrownBy(() -> userService.partialUpdate(id, Map.of("address", "Lviv"), version))
+                .isInstanceOf(PreconditionFailedException.class);
+        userService.partialUpdate(id, Map.of("address", "Lviv"), version + 1);
+        assertEquals("Lviv", userService.get(id).getAddress());
+
+        userService.delete(id, null);
+        assertThatThrownBy(() -> userService.get(id)).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void testEmailsAreUniqueAcrossShards() {
+        List<Long> ids = createUsers(2);
+
+        assertThatThrownBy(() -> userService.create(createUserDto("USER0@gamil.com", START)))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertThatThrownBy(() -> userService.update(ids.get(1), createUserDto("user0@gamil.com", START), null))
+                .isInstanceOf(DuplicateEmailException.class);
+        assertEquals(ids.get(0), userService.getUsersByEmail("User0@gamil.com", true).get(0).getId());
+
+        userService.update(ids.get(0), createUserDto("moved@gamil.com", START), null);
+        userService.create(createUserDto("user0@gamil.com", START));
+        assertEquals(1, userService.getUsersByEmail("user0@gamil.com", true).size());
+    }
+
+    @Test
+    public void testBucketsMoveWhileUsersAreWritten() throws Exception {
+        List<Long> ids = createUsers(90);
+        Long written = ids.get(0);
+        AtomicBoolean moving = new AtomicBoolean(true);
+        CompletableFuture<Integer> writes = CompletableFuture.supplyAsync(() -> {
+            int count = 0;
+            while (moving.get()) {
+                UserDto user = createUserDto("user0@gamil.com", START);
+                user.setLastName("Write" + ++count);
+                userService.update(written, user, null);
+            }
+            return count;
+        });
+
+        // everything onto the first shard, then spread out again
+        for (int bucket = 0; bucket < ShardMap.BUCKETS; bucket++) {
+            shardRebalancer.move(bucket, 0);
+        }
+        assertEquals(90, countUsers(0));
+        RebalanceResultDto result = shardRebalancer.rebalance();
+        moving.set(false);
+        int count = writes.get();
+
+        assertEquals(ShardMap.BUCKETS - ShardMap.BUCKETS / 3 - 1, result.getBucketsMoved());
+        assertEquals(90, countUsers(0) + countUsers(1) + countUsers(2));
+        assertEquals("Write" + count, userService.get(written).getLastName());
+        for (Long id : ids) {
+            assertEquals(id, userService.get(id).getId());
+        }
+        assertEquals(90, userService.getUsersByBirthDateRange(START, START.plusDays(90), true).size());
+        for (int shard = 0; shard < userStore.shardCount(); shard++) {
+            int owner = shard;
+            userStore.shard(shard).queryForList("SELECT id FROM user", Long.class)
+                    .forEach(id -> assertEquals(owner, shardMap.shardOfBucket(ShardMap.bucketOf(id))));
+        }
+    }
+
+    private List<Long> createUsers(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            // birth dates out of id order, so that the merge has to interleave the shards
+            userService.create(createUserDto("user" + i + "@gamil.com", START.plusDays((i * 7L) % count)));
+            ids.add(userService.getUsersByEmail("user" + i + "@gamil.com", true).get(0).getId());
+        }
+        return ids;
+    }
+
+    private int countUsers(int shard) {
+        return userStore.shard(shard).queryForObject("SELECT COUNT(*) FROM user", Integer.class);
+    }
+
+    private UserDto createUserDto(String email, LocalDate birthDate) {
+        return new UserDto(null, email, "Sharded", "User", birthDate, "Kyiv, Ukraine", "0123456789");
+    }
+}